@@ -5,6 +5,11 @@ CREATE DATABASE IF NOT EXISTS test
 
 USE cosmoport;
 
+-- the schema of db/migration/V1 with sample data, the application applies the later versions on start
+DROP TABLE IF EXISTS schema_version;
+DROP TABLE IF EXISTS schema_lock;
+DROP TABLE IF EXISTS replica_heartbeat;
+DROP TABLE IF EXISTS id_node;
 DROP TABLE IF EXISTS ship;
 
 CREATE TABLE ship
@@ -18,7 +23,21 @@ CREATE TABLE ship
     speed    DOUBLE      NULL,
     crewSize INT(4)      NULL,
     rating   DOUBLE      NULL,
-    PRIMARY KEY (id)
+    PRIMARY KEY (id),
+    INDEX ship_speed_id (speed, id),
+    INDEX ship_prod_date_id (prodDate, id),
+    INDEX ship_rating_id (rating, id)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARACTER SET = utf8;
+
+DROP TABLE IF EXISTS job_checkpoint;
+
+CREATE TABLE job_checkpoint
+(
+    name   VARCHAR(50) NOT NULL,
+    lastId BIGINT(20)  NOT NULL,
+    PRIMARY KEY (name)
 )
     ENGINE = InnoDB
     DEFAULT CHARACTER SET = utf8;
@@ -0,0 +1,61 @@
+package com.space.benchmark;
+
+import com.space.config.AppConfig;
+import com.space.service.ShipService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spring context on the "dev" H2 database, seeded from test.sql and scaled up
+ * to the requested number of ships by copying the seed rows.
+ */
+class Fleet {
+    private static final int BATCH_SIZE = 5_000;
+
+    static AnnotationConfigApplicationContext start(int fleetSize) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class);
+        context.refresh();
+
+        seed(new JdbcTemplate(context.getBean(DataSource.class)), fleetSize);
+        context.getBean(ShipService.class).reload();
+        return context;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int fleetSize) {
+        List<Object[]> seedRows = jdbcTemplate.query(
+                "SELECT name, planet, shipType, prodDate, isUsed, speed, crewSize, rating FROM ship ORDER BY id",
+                (rs, rowNum) -> new Object[]{rs.getString(1), rs.getString(2), rs.getString(3), rs.getDate(4),
+                        rs.getBoolean(5), rs.getDouble(6), rs.getInt(7), rs.getDouble(8)});
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = seedRows.size(); i < fleetSize; i++) {
+            Object[] row = seedRows.get(i % seedRows.size()).clone();
+            String suffix = " " + (i / seedRows.size());
+            row[0] = truncate(row[0] + suffix);
+            row[1] = truncate(row[1] + suffix);
+            row[3] = new Date(((Date) row[3]).getTime());
+            batch.add(row);
+            if (batch.size() == BATCH_SIZE) {
+                insert(jdbcTemplate, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) insert(jdbcTemplate, batch);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    private static String truncate(String value) {
+        return value.length() > 50 ? value.substring(0, 50) : value;
+    }
+}
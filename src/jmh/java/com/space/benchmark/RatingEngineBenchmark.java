@@ -0,0 +1,83 @@
+package com.space.benchmark;
+
+import com.space.service.RatingEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RatingEngine against the Calendar based computation it replaced, per ship and over a batch of columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RatingEngineBenchmark {
+    private static final int BATCH = 10_000;
+
+    private final RatingEngine ratingEngine = new RatingEngine();
+
+    private final double[] speeds = new double[BATCH];
+    private final boolean[] used = new boolean[BATCH];
+    private final long[] prodDates = new long[BATCH];
+    private final Date[] dates = new Date[BATCH];
+    private final double[] ratings = new double[BATCH];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Calendar calendar = Calendar.getInstance();
+        for (int i = 0; i < BATCH; i++) {
+            speeds[i] = 0.01 + random.nextInt(99) / 100d;
+            used[i] = random.nextBoolean();
+            calendar.clear();
+            calendar.set(RatingEngine.MIN_YEAR + random.nextInt(RatingEngine.MAX_YEAR - RatingEngine.MIN_YEAR + 1), random.nextInt(12), 1);
+            prodDates[i] = calendar.getTimeInMillis();
+            dates[i] = new Date(prodDates[i]);
+        }
+    }
+
+    @Benchmark
+    public Double calendarRating() {
+        return calendarRating(speeds[17], used[17], dates[17]);
+    }
+
+    @Benchmark
+    public double engineRating() {
+        return ratingEngine.rating(speeds[17], used[17], prodDates[17]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void calendarBatch(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(calendarRating(speeds[i], used[i], dates[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public double[] engineBatch() {
+        ratingEngine.rate(speeds, used, prodDates, ratings, BATCH);
+        return ratings;
+    }
+
+    // ShipService.ratingCalc before RatingEngine
+    private static Double calendarRating(Double speed, Boolean isUsed, Date date) {
+        double k = isUsed ? 0.5d : 1d;
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        double y1 = calendar.get(Calendar.YEAR);
+
+        double result = (80 * speed * k) / (3019 - y1 + 1);
+        double scale = Math.pow(10, 2);
+        return Math.round(result * scale) / scale;
+    }
+}
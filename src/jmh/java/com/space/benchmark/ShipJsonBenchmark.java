@@ -0,0 +1,72 @@
+package com.space.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.space.controller.ShipJsonModule;
+import com.space.controller.ShipView;
+import com.space.model.ShipType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A list page of ships serialized by the field reflection mapper WebConfig used before and by ShipJsonModule,
+ * per ship; run with the default "-prof gc" for the allocation per ship (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipJsonBenchmark {
+    private static final int PAGE = 100;
+
+    private final List<ShipView> ships = new ArrayList<>(PAGE);
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(PAGE * 256);
+
+    private ObjectWriter reflection;
+    private ObjectWriter module;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < PAGE; i++) {
+            ships.add(new ShipView((long) i + 1, "Ship " + i, "Planet " + random.nextInt(10),
+                    ShipType.values()[random.nextInt(ShipType.values().length)], new Date(32_000_000_000_000L + random.nextInt(1_000_000) * 1_000_000L),
+                    random.nextBoolean(), random.nextInt(99) / 100d + 0.01, 1 + random.nextInt(9999), random.nextInt(10_000) / 100d));
+        }
+        reflection = mapper().writer();
+        module = mapper().registerModule(new ShipJsonModule()).writer();
+    }
+
+    private static ObjectMapper mapper() {
+        return new ObjectMapper()
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE)
+    public int reflectionPage() throws IOException {
+        out.reset();
+        reflection.writeValue(out, ships);
+        return out.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE)
+    public int modulePage() throws IOException {
+        out.reset();
+        module.writeValue(out, ships);
+        return out.size();
+    }
+}
@@ -0,0 +1,69 @@
+package com.space.benchmark;
+
+import com.space.controller.ShipOrder;
+import com.space.controller.ShipView;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipCursor;
+import com.space.repository.ShipFilter;
+import com.space.repository.ShipRepository;
+import com.space.repository.ShipSpecification;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipRepositoryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int fleetSize;
+
+    private AnnotationConfigApplicationContext context;
+    private ShipRepository repository;
+    private ShipCursor deepCursor;
+    private final ShipFilter merchants = new ShipFilter(null, "ur", ShipType.MERCHANT, null, null, true, 0.1, 0.9,
+            null, null, null, null);
+    private final ShipFilter byName = new ShipFilter("ra", null, null, null, null, null, null, null,
+            null, null, null, null);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = Fleet.start(fleetSize);
+        repository = context.getBean(ShipRepository.class);
+        deepCursor = new ShipCursor(ShipOrder.SPEED, Double.doubleToLongBits(0.8), fleetSize / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Ship> findByName() {
+        return repository.findAll(ShipSpecification.of(byName), PageRequest.of(0, 3, Sort.by("id"))).getContent();
+    }
+
+    @Benchmark
+    public List<ShipView> findViewsAfterDeepCursor() {
+        return repository.findViews(merchants, ShipOrder.SPEED, deepCursor, 0, 20);
+    }
+
+    @Benchmark
+    public List<ShipView> findViewsDeepPage() {
+        return repository.findViews(merchants, ShipOrder.SPEED, null, 2000, 20);
+    }
+
+    @Benchmark
+    public List<Ship> findDeepPage() {
+        return repository.findAll(ShipSpecification.of(merchants), PageRequest.of(100, 20, Sort.by("speed"))).getContent();
+    }
+}
@@ -0,0 +1,64 @@
+package com.space.benchmark;
+
+import com.space.controller.ShipOrder;
+import com.space.controller.ShipView;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int fleetSize;
+
+    private AnnotationConfigApplicationContext context;
+    private ShipService shipService;
+    private final Date prodDate = new Date(32998274577071L);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = Fleet.start(fleetSize);
+        shipService = context.getBean(ShipService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ShipView> getShipsListUnfiltered() {
+        return shipService.getShipsList(null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public List<ShipView> getShipsListFiltered() {
+        return shipService.getShipsList("ra", "ur", ShipType.MILITARY, null, null, false, 0.3, null,
+                100, null, null, null, ShipOrder.RATING, 2, 10, null);
+    }
+
+    @Benchmark
+    public Ship createShip() {
+        return shipService.createShip("Benchmark", "Earth", ShipType.TRANSPORT, prodDate.getTime(),
+                false, 0.5, 100);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double ratingCalc() {
+        return shipService.ratingCalc(0.5, true, prodDate);
+    }
+}
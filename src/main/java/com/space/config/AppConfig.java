@@ -1,67 +1,247 @@
 package com.space.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.annotation.Role;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
-import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
-
-import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+import java.util.UUID;
 
 @Configuration
 @EnableTransactionManagement
-@ComponentScan("com.space.service")
+@EnableScheduling
+@ComponentScan({"com.space.service", "com.space.repository"})
+@PropertySource("classpath:cosmoport.properties")
 @EnableJpaRepositories(basePackages = "com.space.repository")
 public class AppConfig {
 
+    @Value("${db.pool.max-size:10}")
+    private int poolMaxSize;
+
+    @Value("${db.pool.min-idle:2}")
+    private int poolMinIdle;
+
+    @Value("${db.pool.connection-timeout-ms:30000}")
+    private long connectionTimeout;
+
+    @Value("${db.pool.idle-timeout-ms:600000}")
+    private long idleTimeout;
+
+    @Value("${db.pool.max-lifetime-ms:1800000}")
+    private long maxLifetime;
+
+    @Value("${db.prep-stmt-cache-size:250}")
+    private int prepStmtCacheSize;
+
+    @Value("${db.prep-stmt-cache-sql-limit:2048}")
+    private int prepStmtCacheSqlLimit;
+
+    @Value("${db.statement-log.enabled:true}")
+    private boolean statementLogEnabled;
+
+    @Value("${db.statement-log.slow-ms:200}")
+    private long slowStatementMillis;
+
+    @Value("${db.statement-log.request-budget:10}")
+    private int statementBudget;
+
+    @Value("${metrics.enabled:true}")
+    private boolean metricsEnabled;
+
+    @Value("${db.replica.selection:LEAST_LATENCY}")
+    private ReplicaRoutingDataSource.Selection replicaSelection;
+
+    @Value("${db.replica.max-lag-ms:1000}")
+    private long replicaMaxLag;
+
+    @Value("${db.replica.check-interval-ms:500}")
+    private long replicaCheckInterval;
+
+    @Value("${ship.id.node-id:-1}")
+    private int idNodeId;
+
+    @Value("${ship.id.lease-ms:30000}")
+    private long idLease;
+
+    @Value("${ship.id.reserve-ms:1000}")
+    private long idReserve;
+
+    @Value("${ship.id.max-clock-drift-ms:5000}")
+    private long idMaxClockDrift;
+
+    @Value("${db.migration.enabled:true}")
+    private boolean migrationEnabled;
+
+    @Value("${db.migration.backfill-chunk-size:5000}")
+    private int backfillChunkSize;
+
+    @Value("${db.migration.backfill-rows-per-second:20000}")
+    private int backfillRowsPerSecond;
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, IdGenerator idGenerator) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
+        em.setDataSource(dataSource);
         em.setPackagesToScan("com.space.model");
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(additionalProperties());
+        em.getJpaPropertyMap().put(HibernateIdGenerator.SETTING, idGenerator);
+        if (metricsEnabled) {
+            em.getJpaPropertyMap().put("hibernate.generate_statistics", "true");
+            em.getJpaPropertyMap().put("hibernate.session_factory.interceptor", entityLoadCounter());
+        }
 
         return em;
     }
 
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertyPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    @Bean
+    public PoolMetrics poolMetrics() {
+        return new PoolMetrics();
+    }
+
+    @Bean
+    public MetricsRegistry metricsRegistry() {
+        return new MetricsRegistry(metricsEnabled);
+    }
+
+    @Bean
+    public SqlStatementLog sqlStatementLog() {
+        return new SqlStatementLog(slowStatementMillis, statementBudget);
+    }
+
+    // a node may have reserved ids up to max drift and one reservation ahead of the clock before it stopped
+    @Bean(destroyMethod = "close")
+    public IdNodeLease idNodeLease(DataSource dataSource) {
+        IdNodeLease lease = new IdNodeLease(dataSource, idNodeId, idLease, idMaxClockDrift + idReserve);
+        lease.start(idLease / 3);
+        return lease;
+    }
+
+    @Bean
+    public IdGenerator idGenerator(IdNodeLease idNodeLease) {
+        return new SnowflakeIdGenerator(idNodeLease.getNodeId(), idMaxClockDrift, idNodeLease, idReserve);
+    }
+
+    @Bean
+    public EntityLoadCounter entityLoadCounter() {
+        return new EntityLoadCounter();
+    }
+
+    // an infrastructure advisor is applied by the auto-proxy creator of @EnableTransactionManagement,
+    // so beans that are already transactional get one proxy with both advices
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @Conditional(MetricsEnabledCondition.class)
+    public Advisor methodTimingAdvisor() {
+        return new DefaultPointcutAdvisor(MethodTimingInterceptor.pointcut(), new MethodTimingInterceptor(metricsRegistry()));
+    }
+
     @Profile("prod")
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
-        dataSource.setUsername("root");
-        dataSource.setPassword("rootroot");
-        return dataSource;
+    public DataSource dataSource(@Value("${db.url:jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC&useCursorFetch=true}") String url,
+                                 @Value("${db.username:root}") String username,
+                                 @Value("${db.password:rootroot}") String password,
+                                 @Value("${db.replica.urls:}") String[] replicaUrls) {
+        HikariConfig config = poolConfig("cosmoport");
+        config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", String.valueOf(prepStmtCacheSize));
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", String.valueOf(prepStmtCacheSqlLimit));
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        HikariDataSource dataSource = new HikariDataSource(config);
+        migrate(dataSource);
+        if (replicaUrls.length == 0) return watch(dataSource);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String replicaUrl : replicaUrls) {
+            HikariConfig replicaConfig = new HikariConfig();
+            config.copyStateTo(replicaConfig);
+            replicaConfig.setPoolName("cosmoport-replica-" + (replicas.size() + 1));
+            replicaConfig.setJdbcUrl(replicaUrl.trim());
+            replicaConfig.setReadOnly(true);
+            // the pool gauges of PoolMetrics stay those of the primary
+            replicaConfig.setMetricsTrackerFactory(null);
+            replicas.add(new HikariDataSource(replicaConfig));
+        }
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(dataSource, replicas, replicaSelection, replicaMaxLag);
+        routing.start(replicaCheckInterval);
+        return watch(new LazyConnectionDataSourceProxy(routing));
     }
 
     @Profile("dev")
     @Bean(name = "dataSource")
     public DataSource dataSourceForTests() {
+        HikariConfig config = poolConfig("cosmoport-dev");
+        // a unique in-memory database per context, kept alive while the pool has no connections
+        config.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        HikariDataSource dataSource = new HikariDataSource(config);
+        migrate(dataSource);
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("test.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        DatabasePopulatorUtils.execute(populator, dataSource);
+        return watch(dataSource);
+    }
+
+    // the schema is in place before the entity manager factory or any repository gets the data source
+    private void migrate(DataSource dataSource) {
+        if (migrationEnabled) new SchemaMigrator(dataSource, backfillChunkSize, backfillRowsPerSecond).migrate();
+    }
+
+    private DataSource watch(DataSource dataSource) {
+        return statementLogEnabled ? sqlStatementLog().wrap(dataSource) : dataSource;
+    }
 
-        return new EmbeddedDatabaseBuilder()
-                .generateUniqueName(true)
-                .setType(H2)
-                .setScriptEncoding("UTF-8")
-                .ignoreFailedDrops(true)
-                .addScript("test.sql")
-                .build();
+    private HikariConfig poolConfig(String poolName) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setMaximumPoolSize(poolMaxSize);
+        config.setMinimumIdle(poolMinIdle);
+        config.setConnectionTimeout(connectionTimeout);
+        config.setIdleTimeout(idleTimeout);
+        config.setMaxLifetime(maxLifetime);
+        config.setMetricsTrackerFactory(poolMetrics());
+        return config;
     }
 
     @Bean
@@ -80,6 +260,10 @@ public class AppConfig {
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.jdbc.batch_size", "50");
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
+        properties.setProperty("hibernate.criteria.literal_handling_mode", "BIND");
 
         return properties;
     }
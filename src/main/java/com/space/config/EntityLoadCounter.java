@@ -0,0 +1,30 @@
+package com.space.config;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate interceptor counting the entities the current thread loads, so a request can report how many
+ * rows it hydrated into entities. Registered as the session factory interceptor only when metrics are enabled.
+ */
+public class EntityLoadCounter extends EmptyInterceptor {
+    private static final ThreadLocal<long[]> LOADED = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        LOADED.get()[0]++;
+        return false;
+    }
+
+    /**
+     * @return the entities loaded by this thread since the last call
+     */
+    public long reset() {
+        long[] loaded = LOADED.get();
+        long count = loaded[0];
+        loaded[0] = 0;
+        return count;
+    }
+}
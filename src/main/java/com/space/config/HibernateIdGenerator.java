@@ -0,0 +1,36 @@
+package com.space.config;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Hibernate side of the IdGenerator the application context puts into the JPA properties under SETTING.
+ * Ids are known before the insert, so Hibernate batches the inserts of a flush.
+ */
+public class HibernateIdGenerator implements IdentifierGenerator, Configurable {
+    public static final String SETTING = "cosmoport.id_generator";
+
+    private IdGenerator generator;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(SETTING);
+        if (!(setting instanceof IdGenerator)) {
+            throw new MappingException("No " + IdGenerator.class.getName() + " in the JPA property " + SETTING);
+        }
+        generator = (IdGenerator) setting;
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,12 @@
+package com.space.config;
+
+/**
+ * Source of entity ids assigned before the insert, so the database is not asked for them.
+ */
+public interface IdGenerator {
+
+    /**
+     * @return an id never returned before by this generator
+     */
+    long nextId();
+}
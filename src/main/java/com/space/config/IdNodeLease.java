@@ -0,0 +1,149 @@
+package com.space.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node id of the id generator leased from the id_node table, so two running instances never share one,
+ * and the store of the node's reservations, so a restarted node never repeats an id. The node id is the
+ * configured one, or else the lowest one whose lease has run out. The lease is renewed on a daemon thread
+ * and released on close.
+ * <p>
+ * A node whose reservations are ahead of the clock, as the last holder reserved past its end, waits for the
+ * clock to pass them, and fails when that is more than maxWaitMillis away, as the clock went back.
+ * <p>
+ * The id_node row is only written on a connection of its own in autocommit: a reservation made while
+ * drawing ids must stay stored when the transaction that drew them rolls back, and must not keep the row
+ * locked until that transaction ends.
+ */
+public class IdNodeLease implements SnowflakeIdGenerator.Reservation, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(IdNodeLease.class);
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final long leaseMillis;
+    private final String owner = UUID.randomUUID().toString();
+    private final int nodeId;
+    private ScheduledExecutorService renewer;
+
+    /**
+     * @param configuredNodeId the node id to lease, or -1 for any free one
+     */
+    public IdNodeLease(DataSource dataSource, int configuredNodeId, long leaseMillis, long maxWaitMillis) {
+        if (configuredNodeId > SnowflakeIdGenerator.MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id " + configuredNodeId + " is out of 0.." + SnowflakeIdGenerator.MAX_NODE_ID);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.leaseMillis = leaseMillis;
+        this.nodeId = acquire(configuredNodeId);
+        awaitReservations(maxWaitMillis);
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    private int acquire(int configuredNodeId) {
+        long now = System.currentTimeMillis();
+        List<Integer> candidates = configuredNodeId >= 0 ? Collections.singletonList(configuredNodeId)
+                : jdbcTemplate.queryForList("SELECT nodeId FROM id_node WHERE leasedUntil < ? ORDER BY nodeId", Integer.class, now);
+        for (int candidate : candidates) {
+            if (update("UPDATE id_node SET owner = ?, leasedUntil = ? WHERE nodeId = ? AND leasedUntil < ?",
+                    owner, now + leaseMillis, candidate, now) == 1) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException(configuredNodeId >= 0 ? "Node id " + configuredNodeId + " is leased by a running instance"
+                : "Every node id is leased by a running instance");
+    }
+
+    private void awaitReservations(long maxWaitMillis) {
+        long highWater = jdbcTemplate.queryForObject("SELECT highWater FROM id_node WHERE nodeId = ?", Long.class, nodeId);
+        long wait = highWater + 1 - System.currentTimeMillis();
+        if (wait <= 0) return;
+        if (wait > maxWaitMillis) {
+            close();
+            throw new IllegalStateException("Node id " + nodeId + " has reserved ids " + wait + " ms ahead of the clock");
+        }
+        log.info("Waiting {} ms for the clock to pass the ids reserved by node id {}", wait, nodeId);
+        try {
+            TimeUnit.MILLISECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Interrupted waiting for node id " + nodeId, e);
+        }
+    }
+
+    @Override
+    public void reserve(long untilMillis) {
+        if (update("UPDATE id_node SET highWater = ?, leasedUntil = ? WHERE nodeId = ? AND owner = ?",
+                untilMillis, System.currentTimeMillis() + leaseMillis, nodeId, owner) == 0) {
+            throw new IllegalStateException("The lease of node id " + nodeId + " is lost");
+        }
+    }
+
+    /**
+     * Renews the lease every intervalMillis on a daemon thread until closed.
+     */
+    public void start(long intervalMillis) {
+        renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "id-node-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::renew, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew() {
+        try {
+            if (update("UPDATE id_node SET leasedUntil = ? WHERE nodeId = ? AND owner = ?",
+                    System.currentTimeMillis() + leaseMillis, nodeId, owner) == 0) {
+                log.error("The lease of node id {} is lost to another instance, new ids fail", nodeId);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Renewing the lease of node id {} failed", nodeId, e);
+        }
+    }
+
+    // the reservations stay, the next holder of the node id continues after them
+    @Override
+    public void close() {
+        if (renewer != null) renewer.shutdownNow();
+        try {
+            update("UPDATE id_node SET owner = NULL, leasedUntil = 0 WHERE nodeId = ? AND owner = ?", nodeId, owner);
+        } catch (DataAccessException e) {
+            log.warn("Releasing node id {} failed", nodeId, e);
+        }
+    }
+
+    // taken from the data source itself, not the one bound to the transaction of the calling thread
+    private int update(String sql, Object... args) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < args.length; i++) {
+                    statement.setObject(i + 1, args[i]);
+                }
+                return statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("id_node", sql, e);
+        }
+    }
+}
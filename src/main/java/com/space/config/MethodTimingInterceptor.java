@@ -0,0 +1,80 @@
+package com.space.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times the public methods of the service and repository beans into cosmoport_method_seconds{layer,class,method}.
+ * Spring Data repositories are labelled by their com.space interface, not by the Spring Data implementation.
+ */
+public class MethodTimingInterceptor implements MethodInterceptor {
+    private static final String[] LAYERS = {"service", "repository"};
+
+    private final MetricsRegistry registry;
+    private final Map<Method, Histogram> timers = new ConcurrentHashMap<>();
+
+    public MethodTimingInterceptor(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long started = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            Histogram timer = timers.get(invocation.getMethod());
+            if (timer == null) timer = timers.computeIfAbsent(invocation.getMethod(), method -> timer(method, invocation));
+            timer.record(System.nanoTime() - started);
+        }
+    }
+
+    // a Spring Data target is SimpleJpaRepository, the com.space interface is only on the proxy
+    private Histogram timer(Method method, MethodInvocation invocation) {
+        Class<?> type = invocation.getThis() == null ? null : ownType(AopUtils.getTargetClass(invocation.getThis()));
+        if (type == null && invocation instanceof ProxyMethodInvocation) {
+            type = ownType(((ProxyMethodInvocation) invocation).getProxy().getClass());
+        }
+        if (type == null) type = method.getDeclaringClass();
+        String layer = layerOf(type);
+        return registry.timer("cosmoport_method_seconds", "Duration of service and repository calls.",
+                "layer", layer == null ? "other" : layer, "class", type.getSimpleName(), "method", method.getName());
+    }
+
+    public static StaticMethodMatcherPointcut pointcut() {
+        return new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class
+                        && !method.isBridge() && ownType(targetClass) != null;
+            }
+        };
+    }
+
+    // the class itself, or for a proxy or Spring Data implementation its com.space interface, if in a timed layer
+    private static Class<?> ownType(Class<?> type) {
+        if (type == null) return null;
+        if (layerOf(type) != null) return type;
+        for (Class<?> face : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+            if (layerOf(face) != null) return face;
+        }
+        return null;
+    }
+
+    private static String layerOf(Class<?> type) {
+        String name = type.getName();
+        for (String layer : LAYERS) {
+            if (name.startsWith("com.space." + layer + ".")) return layer;
+        }
+        return null;
+    }
+}
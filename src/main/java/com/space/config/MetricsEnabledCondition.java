@@ -0,0 +1,15 @@
+package com.space.config;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Leaves the instrumentation beans out entirely unless metrics.enabled is true.
+ */
+public class MetricsEnabledCondition implements Condition {
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return context.getEnvironment().getProperty("metrics.enabled", Boolean.class, true);
+    }
+}
@@ -0,0 +1,131 @@
+package com.space.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Named metric families with label sets, written out in the Prometheus text exposition format. Histograms are
+ * exposed as summaries with quantiles; counters and gauges are either recorded here or read from a supplier
+ * at scrape time. Callers on hot paths look their series up once and keep the returned instance.
+ * <p>
+ * When disabled nothing gets instrumented (see AppConfig and WebConfig) and the record paths that do exist
+ * only check isEnabled().
+ */
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 1};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final boolean enabled;
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A histogram of durations recorded in nanoseconds and exposed in seconds.
+     *
+     * @param labels label names and values, alternating
+     */
+    public Histogram timer(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "summary", NANOS_PER_SECOND).series(labels, Histogram::new);
+    }
+
+    /**
+     * A histogram of plain values, such as rows or entities per request.
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, "summary", 1).series(labels, Histogram::new);
+    }
+
+    public LongAdder counter(String name, String help, String... labels) {
+        return (LongAdder) family(name, help, "counter", 1).series(labels, LongAdder::new);
+    }
+
+    /**
+     * A counter or gauge read from value whenever the metrics are scraped.
+     */
+    public void register(String name, String help, String type, Supplier<? extends Number> value, String... labels) {
+        family(name, help, type, 1).series(labels, () -> value);
+    }
+
+    private Family family(String name, String help, String type, double scale) {
+        return families.computeIfAbsent(name, key -> new Family(help, type, scale));
+    }
+
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        families.forEach((name, family) -> {
+            out.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            family.series.forEach((labels, metric) -> {
+                if (metric instanceof Histogram) {
+                    Histogram histogram = (Histogram) metric;
+                    for (double quantile : QUANTILES) {
+                        sample(out, name, withLabel(labels, "quantile", format(quantile)), histogram.quantile(quantile) / family.scale);
+                    }
+                    sample(out, name + "_sum", labels, histogram.sum() / family.scale);
+                    sample(out, name + "_count", labels, histogram.count());
+                } else if (metric instanceof LongAdder) {
+                    sample(out, name, labels, ((LongAdder) metric).sum());
+                } else {
+                    Number value = ((Supplier<? extends Number>) metric).get();
+                    sample(out, name, labels, value == null ? Double.NaN : value.doubleValue());
+                }
+            });
+        });
+        return out.toString();
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+        out.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        String label = name + "=\"" + value + "\"";
+        return labels.isEmpty() ? label : labels + "," + label;
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        if (value == (long) value) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    private static String labels(String[] labels) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (text.length() > 0) text.append(',');
+            text.append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return text.toString();
+    }
+
+    private static class Family {
+        private final String help;
+        private final String type;
+        private final double scale;
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        private Family(String help, String type, double scale) {
+            this.help = help;
+            this.type = type;
+            this.scale = scale;
+        }
+
+        private Object series(String[] labels, Supplier<?> factory) {
+            return series.computeIfAbsent(MetricsRegistry.labels(labels), key -> factory.get());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool gauges and acquire/usage timings, fed by Hikari through its metrics tracker hook.
+ */
+public class PoolMetrics implements MetricsTrackerFactory {
+    private volatile PoolStats poolStats;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAccumulator maxUsageMillis = new LongAccumulator(Math::max, 0);
+    private final LongAdder created = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                created.increment();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquired.increment();
+                acquireNanos.add(elapsedAcquiredNanos);
+                maxAcquireNanos.accumulate(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageMillis.add(elapsedBorrowedMillis);
+                maxUsageMillis.accumulate(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * Current pool state and totals since startup.
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        PoolStats stats = poolStats;
+        if (stats != null) {
+            metrics.put("active", (long) stats.getActiveConnections());
+            metrics.put("idle", (long) stats.getIdleConnections());
+            metrics.put("total", (long) stats.getTotalConnections());
+            metrics.put("max", (long) stats.getMaxConnections());
+            metrics.put("pending", (long) stats.getPendingThreads());
+        }
+        long count = acquired.sum();
+        metrics.put("acquired", count);
+        metrics.put("acquireMicrosAvg", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(acquireNanos.sum() / count));
+        metrics.put("acquireMicrosMax", TimeUnit.NANOSECONDS.toMicros(maxAcquireNanos.get()));
+        metrics.put("usageMillisAvg", count == 0 ? 0 : usageMillis.sum() / count);
+        metrics.put("usageMillisMax", maxUsageMillis.get());
+        metrics.put("created", created.sum());
+        metrics.put("timeouts", timeouts.sum());
+        return metrics;
+    }
+}
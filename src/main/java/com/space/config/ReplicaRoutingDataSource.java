@@ -0,0 +1,242 @@
+package com.space.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to a read replica and everything else to the primary.
+ * It has to sit behind a LazyConnectionDataSourceProxy, so the connection is taken once the transaction
+ * is marked read-only rather than when it begins.
+ * <p>
+ * Every check writes the time into replica_heartbeat on the primary and reads it back from each replica:
+ * a replica is behind by at most the age of the heartbeat it shows, and one behind by more than maxLagMillis,
+ * or failing the read, gets no reads until it catches up. Reads are spread round-robin or go to the replica
+ * with the lowest average latency of the check query; with no replica available they go to the primary.
+ * <p>
+ * A thread pinned to the primary, the requests of a client that has just written (see ReadYourWritesInterceptor),
+ * reads from the primary too. What a replica served may be older than this process's own writes, so callers
+ * compare replicaReads() before and after a read to keep such results out of caches and ETags.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String PRIMARY = "primary";
+    // weight of the latest check in the average latency
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    private static final ThreadLocal<long[]> REPLICA_READS = ThreadLocal.withInitial(() -> new long[1]);
+
+    public enum Selection {ROUND_ROBIN, LEAST_LATENCY}
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Selection selection;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+    // none written yet: no replica counts as caught up before the first heartbeat
+    private volatile long lastBeat = Long.MAX_VALUE;
+    private ScheduledExecutorService checker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Selection selection, long maxLagMillis) {
+        this.primary = primary;
+        this.selection = selection;
+        this.maxLagMillis = maxLagMillis;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = new Replica("replica-" + (i + 1), replicas.get(i));
+            this.replicas.add(replica);
+            targets.put(replica.name, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static void setPinnedToPrimary(boolean pinned) {
+        if (pinned) PINNED.set(Boolean.TRUE);
+        else PINNED.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    /**
+     * @return how many read-only transactions of the calling thread a replica has served, a read that leaves it
+     * unchanged came from the primary
+     */
+    public static long replicaReads() {
+        return REPLICA_READS.get()[0];
+    }
+
+    /**
+     * Runs the read on the primary, for reads that refill what is kept in memory and must not miss a write.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        boolean pinned = isPinnedToPrimary();
+        setPinnedToPrimary(true);
+        try {
+            return read.get();
+        } finally {
+            setPinnedToPrimary(pinned);
+        }
+    }
+
+    /**
+     * The task pinned to the primary when the thread submitting it is, for executors running request work.
+     */
+    public static Runnable keepingPin(Runnable task) {
+        boolean pinned = isPinnedToPrimary();
+        return () -> {
+            setPinnedToPrimary(pinned);
+            try {
+                task.run();
+            } finally {
+                setPinnedToPrimary(false);
+            }
+        };
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) return PRIMARY;
+        Replica replica = isPinnedToPrimary() ? null : select();
+        if (replica == null) {
+            primaryReads.increment();
+            return PRIMARY;
+        }
+        replica.reads.increment();
+        REPLICA_READS.get()[0]++;
+        return replica.name;
+    }
+
+    private Replica select() {
+        int size = replicas.size();
+        if (selection == Selection.ROUND_ROBIN) {
+            int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (available(replica)) return replica;
+            }
+            return null;
+        }
+        Replica fastest = null;
+        for (Replica replica : replicas) {
+            if (available(replica) && (fastest == null || replica.latencyNanos < fastest.latencyNanos)) fastest = replica;
+        }
+        return fastest;
+    }
+
+    private boolean available(Replica replica) {
+        return replica.healthy && replica.lagMillis <= maxLagMillis;
+    }
+
+    /**
+     * Checks the replicas now and then every intervalMillis on a daemon thread until closed.
+     */
+    public void start(long intervalMillis) {
+        checkReplicas();
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::checkReplicas, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // replicas are read before the next heartbeat is written: one that shows the previous heartbeat is up to date,
+    // any other is behind by at most the age of what it shows
+    public void checkReplicas() {
+        long now = System.currentTimeMillis();
+        for (Replica replica : replicas) {
+            long started = System.nanoTime();
+            try {
+                Long beatAt = new JdbcTemplate(replica.dataSource).queryForObject("SELECT beatAt FROM replica_heartbeat WHERE id = 1", Long.class);
+                long latency = System.nanoTime() - started;
+                replica.latencyNanos = replica.latencyNanos == 0 ? latency
+                        : (long) (LATENCY_WEIGHT * latency + (1 - LATENCY_WEIGHT) * replica.latencyNanos);
+                replica.lagMillis = beatAt == null ? Long.MAX_VALUE : beatAt >= lastBeat ? 0 : Math.max(0, now - beatAt);
+                replica.healthy = true;
+            } catch (DataAccessException e) {
+                if (replica.healthy) log.warn("Replica {} failed its check, reads go elsewhere", replica.name, e);
+                replica.healthy = false;
+            }
+        }
+        try {
+            long beat = System.currentTimeMillis();
+            new JdbcTemplate(primary).update("UPDATE replica_heartbeat SET beatAt = ? WHERE id = 1", beat);
+            lastBeat = beat;
+        } catch (DataAccessException e) {
+            log.warn("Writing the replica heartbeat failed", e);
+        }
+    }
+
+    /**
+     * Per replica its state and the reads routed to it, plus the read-only transactions the primary served.
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> snapshot = new LinkedHashMap<>();
+        snapshot.put(PRIMARY, Collections.singletonMap("reads", primaryReads.sum()));
+        for (Replica replica : replicas) {
+            Map<String, Long> metrics = new LinkedHashMap<>();
+            metrics.put("healthy", replica.healthy ? 1L : 0L);
+            metrics.put("lagMillis", replica.lagMillis);
+            metrics.put("latencyMicros", TimeUnit.NANOSECONDS.toMicros(replica.latencyNanos));
+            metrics.put("reads", replica.reads.sum());
+            snapshot.put(replica.name, metrics);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) checker.shutdownNow();
+        List<DataSource> dataSources = new ArrayList<>();
+        dataSources.add(primary);
+        for (Replica replica : replicas) {
+            dataSources.add(replica.dataSource);
+        }
+        for (DataSource dataSource : dataSources) {
+            if (!(dataSource instanceof Closeable)) continue;
+            try {
+                ((Closeable) dataSource).close();
+            } catch (Exception e) {
+                log.warn("Closing a data source failed", e);
+            }
+        }
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private volatile boolean healthy;
+        private volatile long lagMillis = Long.MAX_VALUE;
+        private volatile long latencyNanos;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.space.config;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Records the latency of every request by endpoint pattern, method and status, and the entities it loaded.
+ * The start time survives the async dispatch as a request attribute; entity loads on the executor threads of
+ * the async endpoints are not attributed to the request.
+ */
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+    private static final String STARTED = RequestMetricsInterceptor.class.getName() + ".started";
+
+    private final MetricsRegistry registry;
+    private final EntityLoadCounter entityLoadCounter;
+
+    public RequestMetricsInterceptor(MetricsRegistry registry, EntityLoadCounter entityLoadCounter) {
+        this.registry = registry;
+        this.entityLoadCounter = entityLoadCounter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(STARTED) == null) {
+            request.setAttribute(STARTED, System.nanoTime());
+            entityLoadCounter.reset();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object started = request.getAttribute(STARTED);
+        if (started == null) return;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = pattern == null ? "unmapped" : pattern.toString();
+
+        registry.timer("cosmoport_http_request_seconds", "Duration of HTTP requests, serialization included.",
+                "method", request.getMethod(), "endpoint", endpoint, "status", Integer.toString(response.getStatus()))
+                .record(System.nanoTime() - (Long) started);
+        registry.histogram("cosmoport_http_request_entities_loaded", "Entities Hibernate loaded per request.",
+                "endpoint", endpoint)
+                .record(entityLoadCounter.reset());
+    }
+}
@@ -0,0 +1,237 @@
+package com.space.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.util.FileCopyUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned scripts db/migration/V&lt;version&gt;__&lt;description&gt;.sql, or those of another classpath
+ * location, that the schema_version table does not list yet, in version order, and records each one there.
+ * Instances starting together take turns on the row lock of schema_lock, so a script is applied once. V1 creates
+ * only what is missing, so a database created by an older init.sql before schema_version existed is completed
+ * by it like an empty one.
+ * <p>
+ * A script starting with "-- @backfill &lt;table&gt;.&lt;key&gt;" holds a single UPDATE with two parameters, the
+ * exclusive lower and inclusive upper key of a range. It is run over the table in ranges of chunkSize existing
+ * keys, found on the key index so sparse keys cost nothing, each in its own short transaction, at most
+ * rowsPerSecond rows a second, so the table stays writable while it runs. Progress is checkpointed in job_checkpoint and an interrupted backfill resumes there.
+ */
+public class SchemaMigrator {
+    private static final Pattern SCRIPT = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern CREATE_INDEX = Pattern.compile("^CREATE\\s+INDEX\\s+(\\w+)\\s+ON\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BACKFILL = Pattern.compile("^--\\s*@backfill\\s+(\\w+)\\.(\\w+)\\s*\\n(.+)", Pattern.DOTALL);
+
+    private final DataSource dataSource;
+    private final String location;
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final int rowsPerSecond;
+
+    public SchemaMigrator(DataSource dataSource, int chunkSize, int rowsPerSecond) {
+        this(dataSource, "db/migration", chunkSize, rowsPerSecond);
+    }
+
+    /**
+     * @param location the classpath directory of the scripts
+     */
+    public SchemaMigrator(DataSource dataSource, String location, int chunkSize, int rowsPerSecond) {
+        this.dataSource = dataSource;
+        this.location = location;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.chunkSize = chunkSize;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * @return the number of scripts applied
+     */
+    public int migrate() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL, description VARCHAR(200) NOT NULL, " +
+                "installedOn TIMESTAMP NOT NULL, executionMillis BIGINT NOT NULL, PRIMARY KEY (version))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_lock (id INT NOT NULL, PRIMARY KEY (id))");
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_lock WHERE id = 1", Integer.class) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO schema_lock(id) VALUES (1)");
+            } catch (DuplicateKeyException e) {
+                // inserted by an instance starting at the same time
+            }
+        }
+        // the lock is held by a transaction of its own, as DDL commits the transaction it runs in on MySQL
+        try (Connection lock = dataSource.getConnection()) {
+            lock.setAutoCommit(false);
+            try {
+                lock(lock);
+                return applyPending();
+            } finally {
+                lock.rollback();
+            }
+        } catch (SQLException e) {
+            throw jdbcTemplate.getExceptionTranslator().translate("schema lock", null, e);
+        }
+    }
+
+    private int applyPending() {
+        List<Migration> migrations = migrations();
+        // an earlier release recorded a database from init.sql as version 1 without creating the rest of V1
+        if (!migrations.isEmpty() && migrations.get(0).version == 1 &&
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_version WHERE version = 1 AND description = 'baseline'", Integer.class) > 0) {
+            run(read(migrations.get(0).resource));
+            jdbcTemplate.update("UPDATE schema_version SET description = ? WHERE version = 1", migrations.get(0).description);
+        }
+        Integer current = jdbcTemplate.queryForObject("SELECT MAX(version) FROM schema_version", Integer.class);
+
+        int applied = 0;
+        for (Migration migration : migrations) {
+            if (current != null && migration.version <= current) continue;
+            long started = System.nanoTime();
+            try {
+                apply(migration);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Migration V" + migration.version + " interrupted", e);
+            }
+            record(migration.version, migration.description, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            applied++;
+        }
+        return applied;
+    }
+
+    // waits out other instances, whose lock timeouts surface as failures to acquire
+    private void lock(Connection connection) throws SQLException {
+        while (true) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeQuery("SELECT id FROM schema_lock WHERE id = 1 FOR UPDATE").close();
+                return;
+            } catch (SQLException e) {
+                if (!(jdbcTemplate.getExceptionTranslator().translate("schema lock", null, e) instanceof PessimisticLockingFailureException)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void apply(Migration migration) throws InterruptedException {
+        String script = read(migration.resource);
+        Matcher backfill = BACKFILL.matcher(script);
+        if (backfill.find()) {
+            backfill("migration-V" + migration.version, backfill.group(1), backfill.group(2), backfill.group(3).trim());
+        } else {
+            run(script);
+        }
+    }
+
+    // statement by statement, skipping the indexes that already exist as MySQL has no CREATE INDEX IF NOT EXISTS
+    private void run(String script) {
+        List<String> statements = new ArrayList<>();
+        ScriptUtils.splitSqlScript(null, script, ";", "--", "/*", "*/", statements);
+        for (String statement : statements) {
+            Matcher index = CREATE_INDEX.matcher(statement);
+            if (index.find() && indexExists(index.group(2), index.group(1))) continue;
+            jdbcTemplate.execute(statement);
+        }
+    }
+
+    private void backfill(String checkpoint, String table, String key, String update) throws InterruptedException {
+        // the last key of the next chunk, found on the key index however sparse the keys are
+        String chunkEnd = "SELECT MAX(" + key + ") FROM (SELECT " + key + " FROM " + table + " WHERE " + key + " > ? " +
+                "ORDER BY " + key + " LIMIT ?) chunk";
+        List<Long> lastKeys = jdbcTemplate.queryForList("SELECT lastId FROM job_checkpoint WHERE name = ?", Long.class, checkpoint);
+        long from = lastKeys.isEmpty() ? 0 : lastKeys.get(0);
+        if (lastKeys.isEmpty()) jdbcTemplate.update("INSERT INTO job_checkpoint(name, lastId) VALUES (?, ?)", checkpoint, from);
+
+        long started = System.nanoTime();
+        long rows = 0;
+        for (Long to; (to = jdbcTemplate.queryForObject(chunkEnd, Long.class, from, chunkSize)) != null; from = to) {
+            rows += jdbcTemplate.update(update, from, to);
+            jdbcTemplate.update("UPDATE job_checkpoint SET lastId = ? WHERE name = ?", to, checkpoint);
+            throttle(started, rows);
+        }
+        jdbcTemplate.update("DELETE FROM job_checkpoint WHERE name = ?", checkpoint);
+    }
+
+    // sleeps until rows could not have been written faster than rowsPerSecond
+    private void throttle(long started, long rows) throws InterruptedException {
+        if (rowsPerSecond <= 0) return;
+        long due = started + TimeUnit.SECONDS.toNanos(rows) / rowsPerSecond;
+        long wait = due - System.nanoTime();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+
+    private void record(int version, String description, long executionMillis) {
+        jdbcTemplate.update("INSERT INTO schema_version(version, description, installedOn, executionMillis) VALUES (?, ?, ?, ?)",
+                version, description, new Timestamp(System.currentTimeMillis()), executionMillis);
+    }
+
+    private boolean indexExists(String table, String index) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, "%", new String[]{"TABLE"})) {
+                while (tables.next()) {
+                    String name = tables.getString("TABLE_NAME");
+                    if (!table.equalsIgnoreCase(name)) continue;
+                    try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), tables.getString("TABLE_SCHEM"), name, false, true)) {
+                        while (indexes.next()) {
+                            if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) return true;
+                        }
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    private List<Migration> migrations() {
+        List<Migration> migrations = new ArrayList<>();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:" + location + "/V*__*.sql")) {
+                Matcher name = SCRIPT.matcher(resource.getFilename());
+                if (!name.matches()) continue;
+                migrations.add(new Migration(Integer.parseInt(name.group(1)), name.group(2).replace('_', ' '), resource));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        migrations.sort(Comparator.comparingInt(migration -> migration.version));
+        return migrations;
+    }
+
+    private static String read(Resource resource) {
+        try {
+            return FileCopyUtils.copyToString(new EncodedResource(resource, "UTF-8").getReader()).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final Resource resource;
+
+        private Migration(int version, String description, Resource resource) {
+            this.version = version;
+            this.description = description;
+            this.resource = resource;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.space.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered ids made of the milliseconds since 2020-01-01 UTC, a sequence within the millisecond and
+ * the node id, from high to low bits: 41 + 7 + 5 = 53 bits, so the ids stay exact as JavaScript numbers.
+ * Nodes with different ids never collide, and the ids of one node only grow.
+ * <p>
+ * The last id is kept in an AtomicLong and advanced with compare-and-set. A full millisecond or a clock
+ * that went back continues from the last id, borrowing the following milliseconds; once that runs more
+ * than maxDriftMillis ahead of the clock, nextId fails instead of waiting.
+ * <p>
+ * With a Reservation, no id is handed out before the reservation has stored that ids up to its time may
+ * exist. Ids reach past what is stored every reserveMillis or so, which is the only time nextId writes.
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+    public static final long EPOCH = 1577836800000L;
+    public static final int NODE_BITS = 5;
+    public static final int SEQUENCE_BITS = 7;
+    public static final int TIMESTAMP_BITS = 41;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+    private static final long SEQUENCE_STEP = 1L << NODE_BITS;
+
+    private final long nodeId;
+    private final long maxDriftMillis;
+    private final LongSupplier clock;
+    private final Reservation reservation;
+    private final long reserveMillis;
+    private final AtomicLong last = new AtomicLong();
+    // relative to EPOCH like the id timestamps
+    private volatile long reservedUntil;
+
+    public SnowflakeIdGenerator(int nodeId, long maxDriftMillis) {
+        this(nodeId, maxDriftMillis, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(int nodeId, long maxDriftMillis, LongSupplier clock) {
+        this(nodeId, maxDriftMillis, null, 0, clock);
+    }
+
+    public SnowflakeIdGenerator(int nodeId, long maxDriftMillis, Reservation reservation, long reserveMillis) {
+        this(nodeId, maxDriftMillis, reservation, reserveMillis, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(int nodeId, long maxDriftMillis, Reservation reservation, long reserveMillis, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id " + nodeId + " is out of 0.." + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.maxDriftMillis = maxDriftMillis;
+        this.clock = clock;
+        this.reservation = reservation;
+        this.reserveMillis = reserveMillis;
+        this.reservedUntil = reservation == null ? Long.MAX_VALUE : -1;
+    }
+
+    @Override
+    public long nextId() {
+        long now = clock.getAsLong() - EPOCH;
+        if (now < 0 || now >= 1L << TIMESTAMP_BITS) {
+            throw new IllegalStateException("Clock " + (now + EPOCH) + " is out of the id time range");
+        }
+        long candidate = now << TIMESTAMP_SHIFT | nodeId;
+        while (true) {
+            long previous = last.get();
+            // the sequence overflows into the timestamp, the node bits stay
+            long next = candidate > previous ? candidate : previous + SEQUENCE_STEP;
+            long timestamp = next >>> TIMESTAMP_SHIFT;
+            if (timestamp - now > maxDriftMillis) {
+                throw new IllegalStateException("Ids run " + (timestamp - now) + " ms ahead of the clock, more than " + maxDriftMillis);
+            }
+            if (timestamp > reservedUntil) {
+                reserve(timestamp);
+            } else if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    private synchronized void reserve(long timestamp) {
+        if (timestamp <= reservedUntil) return;
+        long until = timestamp + reserveMillis;
+        reservation.reserve(until + EPOCH);
+        reservedUntil = until;
+    }
+
+    public static long timestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    public static int nodeId(long id) {
+        return (int) (id & MAX_NODE_ID);
+    }
+
+    /**
+     * Durable record of how far the ids of a node may have got.
+     */
+    public interface Reservation {
+
+        /**
+         * Stores that ids up to untilMillis may have been handed out, failing if that cannot be guaranteed.
+         */
+        void reserve(long untilMillis);
+    }
+}
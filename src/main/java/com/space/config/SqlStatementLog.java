@@ -0,0 +1,208 @@
+package com.space.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches every JDBC statement of a wrapped data source: statements slower than slowNanos are logged with
+ * their bound parameters and the service method they came from, and the statements of an HTTP request are
+ * counted between beginRequest and endRequest. A request issuing more than budget statements, the usual
+ * sign of an N+1 access pattern, is logged and kept as a violation until drained.
+ * <p>
+ * Statements run on the executor threads of the async endpoints are not counted against their request.
+ */
+public class SqlStatementLog {
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementLog.class);
+    private static final int MAX_VIOLATIONS = 100;
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final long slowNanos;
+    private final int budget;
+    private final ThreadLocal<int[]> requestStatements = new ThreadLocal<>();
+    private final Queue<String> violations = new ConcurrentLinkedQueue<>();
+
+    public SqlStatementLog(long slowMillis, int budget) {
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+        this.budget = budget;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return new LoggingDataSource(dataSource);
+    }
+
+    public void beginRequest() {
+        requestStatements.set(new int[1]);
+    }
+
+    /**
+     * @return the statements the request issued, or -1 if it was not begun on this thread
+     */
+    public int endRequest(String method, String endpoint) {
+        int[] statements = requestStatements.get();
+        requestStatements.remove();
+        if (statements == null) return -1;
+        if (statements[0] > budget) {
+            String violation = method + " " + endpoint + " issued " + statements[0] + " statements, budget " + budget;
+            log.warn("Statement budget exceeded: {}", violation);
+            violations.add(violation);
+            if (violations.size() > MAX_VIOLATIONS) violations.poll();
+        }
+        return statements[0];
+    }
+
+    /**
+     * @return the requests over budget since the last call, oldest first
+     */
+    public List<String> drainViolations() {
+        List<String> drained = new ArrayList<>();
+        for (String violation; (violation = violations.poll()) != null; ) {
+            drained.add(violation);
+        }
+        return drained;
+    }
+
+    private void executed(String sql, List<Object> parameters, long elapsedNanos) {
+        int[] statements = requestStatements.get();
+        if (statements != null) statements[0]++;
+        if (elapsedNanos < slowNanos) return;
+        log.warn("Slow statement, {} ms in {}: {} {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), caller(), sql, format(parameters));
+    }
+
+    // the innermost com.space.service frame, skipping the generated proxy classes
+    private static String caller() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String type = frame.getClassName();
+            if (type.startsWith("com.space.service.") && !type.contains("$$")) {
+                return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            }
+        }
+        return "unknown";
+    }
+
+    private static String format(List<Object> parameters) {
+        if (parameters == null || parameters.isEmpty()) return "";
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 1; i < parameters.size(); i++) {
+            if (text.length() > 1) text.append(", ");
+            String value = String.valueOf(parameters.get(i));
+            if (value.length() > MAX_PARAMETER_LENGTH) value = value.substring(0, MAX_PARAMETER_LENGTH) + "...";
+            text.append(i).append('=').append(value);
+        }
+        return text.append(']').toString();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class LoggingDataSource extends DelegatingDataSource implements Closeable {
+
+        private LoggingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return connection(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return connection(super.getConnection(username, password));
+        }
+
+        // the pools are closed through this data source when the context shuts down
+        @Override
+        public void close() {
+            DataSource target = getTargetDataSource();
+            while (!(target instanceof Closeable) && target instanceof DelegatingDataSource) {
+                target = ((DelegatingDataSource) target).getTargetDataSource();
+            }
+            if (target instanceof Closeable) {
+                try {
+                    ((Closeable) target).close();
+                } catch (Exception e) {
+                    log.warn("Closing the data source failed", e);
+                }
+            }
+        }
+
+        private Connection connection(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(SqlStatementLog.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (result instanceof Statement) {
+                            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                            return statement((Statement) result, sql);
+                        }
+                        return result;
+                    });
+        }
+
+        private Statement statement(Statement statement, String sql) {
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return (Statement) Proxy.newProxyInstance(SqlStatementLog.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        // by parameter index, index 0 unused
+        private final List<Object> parameters = new ArrayList<>();
+
+        private StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                int index = (Integer) args[0];
+                while (parameters.size() <= index) parameters.add(null);
+                parameters.set(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            } else if (name.startsWith("execute")) {
+                long started = System.nanoTime();
+                try {
+                    return SqlStatementLog.invoke(statement, method, args);
+                } finally {
+                    String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                    executed(text, parameters, System.nanoTime() - started);
+                }
+            }
+            return SqlStatementLog.invoke(statement, method, args);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.space.config;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the statements of every request in SqlStatementLog, which flags the requests over budget, and with
+ * metrics enabled records them in cosmoport_http_request_statements{endpoint}.
+ */
+public class StatementBudgetInterceptor implements AsyncHandlerInterceptor {
+    private final SqlStatementLog statementLog;
+    private final MetricsRegistry registry;
+
+    public StatementBudgetInterceptor(SqlStatementLog statementLog, MetricsRegistry registry) {
+        this.statementLog = statementLog;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        statementLog.beginRequest();
+        return true;
+    }
+
+    // the async dispatch begins counting again on its own thread
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        statementLog.endRequest(request.getMethod(), endpoint(request));
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        String endpoint = endpoint(request);
+        int statements = statementLog.endRequest(request.getMethod(), endpoint);
+        if (statements >= 0 && registry.isEnabled()) {
+            registry.histogram("cosmoport_http_request_statements", "JDBC statements issued per request.", "endpoint", endpoint)
+                    .record(statements);
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "unmapped" : pattern.toString();
+    }
+}
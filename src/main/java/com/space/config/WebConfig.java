@@ -2,26 +2,86 @@ package com.space.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.space.controller.ShipJsonModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Configuration
 @EnableWebMvc
 @ComponentScan("com.space.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @Autowired
+    private EntityLoadCounter entityLoadCounter;
+
+    @Autowired
+    private SqlStatementLog statementLog;
+
+    @Value("${db.statement-log.enabled:true}")
+    private boolean statementLogEnabled;
+
+    @Value("${db.replica.urls:}")
+    private String[] replicaUrls;
+
+    @Value("${db.replica.read-your-writes-ms:5000}")
+    private long readYourWritesMillis;
+
+    @Value("${ship.export.pool-size:4}")
+    private int exportPoolSize;
+
+    @Value("${ship.export.queue-capacity:16}")
+    private int exportQueueCapacity;
+
+    @Value("${ship.export.timeout-ms:600000}")
+    private long exportTimeout;
+
+    // runs the StreamingResponseBody exports; a full queue is answered with 503 by ShipController
+    @Bean
+    public ThreadPoolTaskExecutor mvcAsyncExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(exportPoolSize);
+        executor.setMaxPoolSize(exportPoolSize);
+        executor.setQueueCapacity(exportQueueCapacity);
+        executor.setThreadNamePrefix("ship-export-");
+        // a client that has just written reads its export from the primary too
+        executor.setTaskDecorator(ReplicaRoutingDataSource::keepingPin);
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(mvcAsyncExecutor());
+        // a large export streams for minutes, the async endpoints complete long before
+        configurer.setDefaultTimeout(exportTimeout);
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -42,11 +102,41 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
     }
 
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (metricsRegistry.isEnabled()) registry.addInterceptor(new RequestMetricsInterceptor(metricsRegistry, entityLoadCounter));
+        if (statementLogEnabled) registry.addInterceptor(new StatementBudgetInterceptor(statementLog, metricsRegistry));
+        if (replicaUrls.length > 0) registry.addInterceptor(new ReadYourWritesInterceptor(readYourWritesMillis));
+    }
+
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
+        converters.add(new StringHttpMessageConverter(StandardCharsets.UTF_8));
+        MappingJackson2HttpMessageConverter converter = metricsRegistry.isEnabled()
+                ? new TimedJacksonConverter() : new MappingJackson2HttpMessageConverter();
         converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
         converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        converter.getObjectMapper().registerModule(new ShipJsonModule());
         converters.add(converter);
     }
-}
\ No newline at end of file
+
+    private class TimedJacksonConverter extends MappingJackson2HttpMessageConverter {
+        private final Map<Type, Histogram> timers = new ConcurrentHashMap<>();
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+            long started = System.nanoTime();
+            super.writeInternal(object, type, outputMessage);
+            Type key = type != null ? type : object.getClass();
+            Histogram timer = timers.get(key);
+            if (timer == null) timer = timers.computeIfAbsent(key, this::timer);
+            timer.record(System.nanoTime() - started);
+        }
+
+        // "java.util.List<com.space.controller.ShipView>" is labelled "List<ShipView>"
+        private Histogram timer(Type type) {
+            return metricsRegistry.timer("cosmoport_serialization_seconds", "Duration of writing JSON responses.",
+                    "type", type.getTypeName().replaceAll("[\\w$]+\\.", ""));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.space.controller;
+
+import com.space.config.ReplicaRoutingDataSource;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.service.ShipService;
+import com.space.service.ShipTaskExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * The ShipController endpoints answered off the servlet thread: the repository work runs on ShipTaskExecutor
+ * and the container thread is released until the future completes. Responses carry the same entity tags;
+ * the If-None-Match check of a GET is made when the completed response is written.
+ */
+@RestController
+@RequestMapping("/rest/async/ships")
+public class AsyncShipController {
+
+    @Autowired
+    private ShipService shipService;
+
+    @Autowired
+    private ShipTaskExecutor taskExecutor;
+
+    @GetMapping()
+    public CompletableFuture<ResponseEntity<List<ShipView>>> getShipsList(String name, String planet,
+                                                                          ShipType shipType, Long after, Long before,
+                                                                          Boolean isUsed,
+                                                                          Double minSpeed, Double maxSpeed,
+                                                                          Integer minCrewSize, Integer maxCrewSize,
+                                                                          Double minRating, Double maxRating,
+                                                                          ShipOrder order,
+                                                                          Integer pageNumber, Integer pageSize,
+                                                                          String cursor,
+                                                                          WebRequest request) {
+        return fleetTagged(request, () -> shipService.getShipsList(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, order, pageNumber, pageSize, cursor));
+    }
+
+    @GetMapping("/page")
+    public CompletableFuture<ResponseEntity<ShipPage>> getShipsPage(String name, String planet,
+                                                                    ShipType shipType, Long after, Long before,
+                                                                    Boolean isUsed,
+                                                                    Double minSpeed, Double maxSpeed,
+                                                                    Integer minCrewSize, Integer maxCrewSize,
+                                                                    Double minRating, Double maxRating,
+                                                                    ShipOrder order,
+                                                                    Integer pageNumber, Integer pageSize,
+                                                                    String cursor,
+                                                                    WebRequest request) {
+        return fleetTagged(request, () -> shipService.getShipsPage(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, order, pageNumber, pageSize, cursor));
+    }
+
+    @GetMapping("/count")
+    public CompletableFuture<ResponseEntity<Integer>> getShipsCount(String name, String planet,
+                                                                    ShipType shipType, Long after, Long before,
+                                                                    Boolean isUsed,
+                                                                    Double minSpeed, Double maxSpeed,
+                                                                    Integer minCrewSize, Integer maxCrewSize,
+                                                                    Double minRating, Double maxRating,
+                                                                    WebRequest request) {
+        return fleetTagged(request, () -> shipService.getShipsCount(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating));
+    }
+
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Ship>> getShipById(@PathVariable Long id) {
+        return taskExecutor.submit(() -> shipService.getShipById(id)).thenApply(AsyncShipController::tagged);
+    }
+
+    @PostMapping()
+    public CompletableFuture<Ship> createShip(@RequestBody ShipRequest shipRequest) {
+        return taskExecutor.submit(() -> shipService.createShip(
+                shipRequest.getName(),
+                shipRequest.getPlanet(),
+                shipRequest.getShipType(),
+                shipRequest.getProdDate(),
+                shipRequest.getUsed(),
+                shipRequest.getSpeed(),
+                shipRequest.getCrewSize()
+        ));
+    }
+
+    @PostMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Ship>> updateShip(@PathVariable Long id, @RequestBody ShipRequest shipRequest,
+                                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ShipETag.versionOf(ifMatch, id);
+        return taskExecutor.submit(() -> shipService.updateShip(
+                id, expectedVersion,
+                shipRequest.getName(),
+                shipRequest.getPlanet(),
+                shipRequest.getShipType(),
+                shipRequest.getProdDate(),
+                shipRequest.getUsed(),
+                shipRequest.getSpeed(),
+                shipRequest.getCrewSize()
+        )).thenApply(AsyncShipController::tagged);
+    }
+
+    @DeleteMapping("/{id}")
+    public CompletableFuture<Void> deleteShip(@PathVariable Long id) {
+        return taskExecutor.submit(() -> {
+            shipService.deleteShip(id);
+            return null;
+        });
+    }
+
+    // as ShipController's lists: 304 without submitting the query, the tag only on what the primary answered,
+    // with the replica reads counted on the executor thread that makes them
+    private <T> CompletableFuture<ResponseEntity<T>> fleetTagged(WebRequest request, Supplier<T> read) {
+        String etag = ShipETag.ofFleet(shipService.getFleetGeneration());
+        if (ShipETag.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build());
+        }
+        return taskExecutor.submit(() -> {
+            long replicaReads = ReplicaRoutingDataSource.replicaReads();
+            T body = read.get();
+            if (ReplicaRoutingDataSource.replicaReads() != replicaReads) return ResponseEntity.ok(body);
+            return ResponseEntity.ok().eTag(etag).body(body);
+        });
+    }
+
+    private static ResponseEntity<Ship> tagged(Ship ship) {
+        return ResponseEntity.ok().eTag(ShipETag.of(ship)).body(ship);
+    }
+}
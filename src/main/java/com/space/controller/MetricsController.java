@@ -0,0 +1,121 @@
+package com.space.controller;
+
+import com.space.config.MetricsRegistry;
+import com.space.config.PoolMetrics;
+import com.space.exceptions.NotFoundException;
+import com.space.service.IndexAdvisor;
+import com.space.service.ShipCache;
+import com.space.service.ShipQueryCache;
+import com.space.service.ShipQueryEngine;
+import com.space.service.ShipTaskExecutor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/rest/metrics")
+public class MetricsController implements InitializingBean {
+
+    @Autowired
+    private ShipCache shipCache;
+
+    @Autowired
+    private ShipQueryCache queryCache;
+
+    @Autowired
+    private PoolMetrics poolMetrics;
+
+    @Autowired
+    private ShipTaskExecutor taskExecutor;
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
+
+    @Autowired
+    private ShipQueryEngine queryEngine;
+
+    @Autowired
+    private MetricsRegistry metrics;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!metrics.isEnabled()) return;
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        metrics.register("cosmoport_hibernate_entities_loaded_total", "Entities loaded by Hibernate.", "counter", statistics::getEntityLoadCount);
+        metrics.register("cosmoport_hibernate_entities_fetched_total", "Entities fetched lazily by Hibernate.", "counter", statistics::getEntityFetchCount);
+        metrics.register("cosmoport_hibernate_queries_total", "Queries executed by Hibernate.", "counter", statistics::getQueryExecutionCount);
+        metrics.register("cosmoport_hibernate_statements_total", "JDBC statements prepared by Hibernate.", "counter", statistics::getPrepareStatementCount);
+        metrics.register("cosmoport_hibernate_query_max_seconds", "Slowest Hibernate query.", "gauge",
+                () -> statistics.getQueryExecutionMaxTime() / 1000d);
+
+        metrics.register("cosmoport_query_engine_rows_scanned_total", "Rows tested by the in-memory query engine.", "counter", queryEngine::getRowsScanned);
+        metrics.register("cosmoport_query_engine_rows_matched_total", "Rows matched by the in-memory query engine.", "counter", queryEngine::getRowsMatched);
+
+        for (String key : poolMetrics.snapshot().keySet()) {
+            metrics.register("cosmoport_pool", "Connection pool state, see /rest/metrics/pool.", "gauge", () -> poolMetrics.snapshot().get(key), "key", key);
+        }
+        for (String key : taskExecutor.metrics().keySet()) {
+            metrics.register("cosmoport_executor", "Ship task executor state, see /rest/metrics/executor.", "gauge", () -> taskExecutor.metrics().get(key), "key", key);
+        }
+        metrics.register("cosmoport_cache_size", "Cached entries.", "gauge", shipCache::size, "cache", "ship");
+        metrics.register("cosmoport_cache_hits_total", "Cache hits.", "counter", shipCache::getHits, "cache", "ship");
+        metrics.register("cosmoport_cache_misses_total", "Cache misses.", "counter", shipCache::getMisses, "cache", "ship");
+        metrics.register("cosmoport_cache_size", "Cached entries.", "gauge", queryCache::size, "cache", "query");
+        metrics.register("cosmoport_cache_hits_total", "Cache hits.", "counter", queryCache::getHits, "cache", "query");
+        metrics.register("cosmoport_cache_misses_total", "Cache misses.", "counter", queryCache::getMisses, "cache", "query");
+    }
+
+    @GetMapping(produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String getPrometheusMetrics() {
+        if (!metrics.isEnabled()) throw new NotFoundException();
+        return metrics.toPrometheus();
+    }
+
+    @GetMapping("/ship-cache")
+    public Map<String, Long> getShipCacheMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("size", (long) shipCache.size());
+        metrics.put("hits", shipCache.getHits());
+        metrics.put("misses", shipCache.getMisses());
+        metrics.put("evictions", shipCache.getEvictions());
+        return metrics;
+    }
+
+    @GetMapping("/query-cache")
+    public Map<String, Long> getQueryCacheMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("size", (long) queryCache.size());
+        metrics.put("hits", queryCache.getHits());
+        metrics.put("misses", queryCache.getMisses());
+        metrics.put("generation", queryCache.generation());
+        return metrics;
+    }
+
+    @GetMapping("/pool")
+    public Map<String, Long> getPoolMetrics() {
+        return poolMetrics.snapshot();
+    }
+
+    @GetMapping("/executor")
+    public Map<String, Long> getExecutorMetrics() {
+        return taskExecutor.metrics();
+    }
+
+    @GetMapping("/index-advisor")
+    public List<IndexAdvisor.Advice> getIndexAdvice() {
+        return indexAdvisor.report();
+    }
+}
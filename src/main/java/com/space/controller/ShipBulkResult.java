@@ -0,0 +1,46 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Outcome of one item of a bulk request: its position in the request, the ship id and the status
+ * the single-item endpoint would have answered with.
+ */
+public class ShipBulkResult {
+    private final int index;
+    private final Long id;
+    private final int status;
+    private final Ship ship;
+
+    private ShipBulkResult(int index, Long id, int status, Ship ship) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.ship = ship;
+    }
+
+    public static ShipBulkResult ok(int index, Long id, Ship ship) {
+        return new ShipBulkResult(index, id, HttpStatus.OK.value(), ship);
+    }
+
+    public static ShipBulkResult failed(int index, Long id, HttpStatus status) {
+        return new ShipBulkResult(index, id, status.value(), null);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Ship getShip() {
+        return ship;
+    }
+}
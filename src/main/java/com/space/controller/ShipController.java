@@ -1,13 +1,20 @@
 package com.space.controller;
 
+import com.space.config.ReplicaRoutingDataSource;
 import com.space.model.Ship;
 import com.space.model.ShipType;
 import com.space.service.ShipService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/rest/ships")
@@ -17,30 +24,62 @@ public class ShipController {
     private ShipService shipService;
 
     @GetMapping()
-    public List<Ship> getShipsList(String name, String planet,
-                                   ShipType shipType, Long after, Long before,
-                                   Boolean isUsed,
-                                   Double minSpeed, Double maxSpeed,
-                                   Integer minCrewSize, Integer maxCrewSize,
-                                   Double minRating, Double maxRating,
-                                   ShipOrder order,
-                                   Integer pageNumber, Integer pageSize) {
-        return shipService.getShipsList(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, order, pageNumber, pageSize);
+    public List<ShipView> getShipsList(String name, String planet,
+                                       ShipType shipType, Long after, Long before,
+                                       Boolean isUsed,
+                                       Double minSpeed, Double maxSpeed,
+                                       Integer minCrewSize, Integer maxCrewSize,
+                                       Double minRating, Double maxRating,
+                                       ShipOrder order,
+                                       Integer pageNumber, Integer pageSize,
+                                       String cursor,
+                                       WebRequest request) {
+        return fleetTagged(request, () -> shipService.getShipsList(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, order, pageNumber, pageSize, cursor));
+    }
+
+    @GetMapping("/page")
+    public ShipPage getShipsPage(String name, String planet,
+                                 ShipType shipType, Long after, Long before,
+                                 Boolean isUsed,
+                                 Double minSpeed, Double maxSpeed,
+                                 Integer minCrewSize, Integer maxCrewSize,
+                                 Double minRating, Double maxRating,
+                                 ShipOrder order,
+                                 Integer pageNumber, Integer pageSize,
+                                 String cursor,
+                                 WebRequest request) {
+        return fleetTagged(request, () -> shipService.getShipsPage(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, order, pageNumber, pageSize, cursor));
     }
 
     @GetMapping("/count")
-    public int getShipsCount(String name, String planet,
-                             ShipType shipType, Long after, Long before,
-                             Boolean isUsed,
-                             Double minSpeed, Double maxSpeed,
-                             Integer minCrewSize, Integer maxCrewSize,
-                             Double minRating, Double maxRating) {
-        return shipService.getShipsCount(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    public Integer getShipsCount(String name, String planet,
+                                 ShipType shipType, Long after, Long before,
+                                 Boolean isUsed,
+                                 Double minSpeed, Double maxSpeed,
+                                 Integer minCrewSize, Integer maxCrewSize,
+                                 Double minRating, Double maxRating,
+                                 WebRequest request) {
+        return fleetTagged(request, () -> shipService.getShipsCount(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportShips(String name, String planet,
+                                                             ShipType shipType, Long after, Long before,
+                                                             Boolean isUsed,
+                                                             Double minSpeed, Double maxSpeed,
+                                                             Integer minCrewSize, Integer maxCrewSize,
+                                                             Double minRating, Double maxRating,
+                                                             ShipOrder order, ShipExportFormat format) {
+        ShipExportFormat exportFormat = format == null ? ShipExportFormat.NDJSON : format;
+        StreamingResponseBody body = out -> shipService.exportShips(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating, order, exportFormat, out);
+        return ResponseEntity.ok().contentType(exportFormat.getMediaType()).body(body);
     }
 
     @GetMapping("/{id}")
-    public Ship getShipById(@PathVariable Long id) {
-        return shipService.getShipById(id);
+    public Ship getShipById(@PathVariable Long id, WebRequest request) {
+        Ship ship = shipService.getShipById(id);
+        if (request.checkNotModified(ShipETag.of(ship))) return null;
+        return ship;
     }
 
     @PostMapping()
@@ -57,9 +96,11 @@ public class ShipController {
     }
 
     @PostMapping("/{id}")
-    public Ship updateShip(@PathVariable Long id, @RequestBody ShipRequest shipRequest) {
-        return shipService.updateShip(
-                id, shipRequest.getName(),
+    public ResponseEntity<Ship> updateShip(@PathVariable Long id, @RequestBody ShipRequest shipRequest,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Ship ship = shipService.updateShip(
+                id, ShipETag.versionOf(ifMatch, id),
+                shipRequest.getName(),
                 shipRequest.getPlanet(),
                 shipRequest.getShipType(),
                 shipRequest.getProdDate(),
@@ -67,10 +108,44 @@ public class ShipController {
                 shipRequest.getSpeed(),
                 shipRequest.getCrewSize()
         );
+        return ResponseEntity.ok().eTag(ShipETag.of(ship)).body(ship);
+    }
+
+    @PostMapping("/bulk")
+    public List<ShipBulkResult> createShips(@RequestBody List<ShipRequest> shipRequests) {
+        return shipService.createShips(shipRequests);
+    }
+
+    @PostMapping("/bulk/update")
+    public List<ShipBulkResult> updateShips(@RequestBody List<ShipRequest> shipRequests) {
+        return shipService.updateShips(shipRequests);
+    }
+
+    @PostMapping("/bulk/delete")
+    public List<ShipBulkResult> deleteShips(@RequestBody List<Long> ids) {
+        return shipService.deleteShips(ids);
     }
 
     @DeleteMapping("/{id}")
     public void deleteShip(@PathVariable Long id) {
         shipService.deleteShip(id);
     }
+
+    // 304 without the query while the client holds the tag of the current generation; a 200 only gets the tag
+    // when the primary answered it, as a replica may not have the writes the generation counts yet
+    private <T> T fleetTagged(WebRequest request, Supplier<T> read) {
+        String etag = ShipETag.ofFleet(shipService.getFleetGeneration());
+        if (ShipETag.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag) && request.checkNotModified(etag)) return null;
+        long replicaReads = ReplicaRoutingDataSource.replicaReads();
+        T body = read.get();
+        // the tag did not match, so the check only sets it on the response
+        if (ReplicaRoutingDataSource.replicaReads() == replicaReads) request.checkNotModified(etag);
+        return body;
+    }
+
+    // the export executor is busy with as many exports as it takes
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void exportRejected() {
+    }
 }
@@ -0,0 +1,58 @@
+package com.space.controller;
+
+import com.space.exceptions.PreconditionFailedException;
+import com.space.model.Ship;
+
+import java.util.UUID;
+
+/**
+ * Strong entity tags of the ship responses. A ship's tag is its id and row version. A list tag is the fleet
+ * write generation, which changes on every write that could change any list, prefixed by an epoch of this
+ * process because the generation starts over on restart.
+ */
+final class ShipETag {
+    private static final String EPOCH = UUID.randomUUID().toString().substring(0, 8);
+
+    private ShipETag() {
+    }
+
+    static String of(Ship ship) {
+        return "\"" + ship.getId() + "-" + ship.getVersion() + "\"";
+    }
+
+    /**
+     * @return the ship version an If-Match header asks for, null when there is no header or it is "*"
+     * @throws PreconditionFailedException when no tag of the header can match the ship with this id
+     */
+    static Long versionOf(String ifMatch, Long id) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) return null;
+        String prefix = "\"" + id + "-";
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.trim();
+            if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) continue;
+            try {
+                return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not one of our tags, try the next one
+            }
+        }
+        throw new PreconditionFailedException();
+    }
+
+    /**
+     * @return whether an If-None-Match header lists the tag, weakly or strongly, or is "*"
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    static String ofFleet(long generation) {
+        return "\"" + EPOCH + "-" + generation + "\"";
+    }
+}
@@ -0,0 +1,82 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.space.model.Ship;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.Writer;
+
+public enum ShipExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")) { // default
+        @Override
+        public void writeHeader(Writer writer) {
+        }
+
+        @Override
+        public void write(Ship ship, Writer writer) throws IOException {
+            JSON.writeValue(writer, ship);
+            writer.write('\n');
+        }
+    },
+    CSV(MediaType.parseMediaType("text/csv")) {
+        @Override
+        public void writeHeader(Writer writer) throws IOException {
+            writer.write("id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating\n");
+        }
+
+        @Override
+        public void write(Ship ship, Writer writer) throws IOException {
+            writer.write(String.valueOf(ship.getId()));
+            writer.write(',');
+            writer.write(quoted(ship.getName()));
+            writer.write(',');
+            writer.write(quoted(ship.getPlanet()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getShipType()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getProdDate().getTime()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getUsed()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getSpeed()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getCrewSize()));
+            writer.write(',');
+            writer.write(String.valueOf(ship.getRating()));
+            writer.write('\n');
+        }
+    };
+
+    // same shape as the REST responses, see WebConfig; the writer must stay open between rows
+    private static final ObjectWriter JSON = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .registerModule(new ShipJsonModule())
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .writerFor(Ship.class);
+
+    private final MediaType mediaType;
+
+    ShipExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public abstract void writeHeader(Writer writer) throws IOException;
+
+    public abstract void write(Ship ship, Writer writer) throws IOException;
+
+    private static String quoted(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,115 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Hand-written serializers for Ship and ShipView producing the same JSON as field reflection: the fields in
+ * declaration order, nulls written, the ship type by name and prodDate as epoch millis. Field names and ship
+ * type values are pre-encoded once and speed and rating are formatted into a per-thread buffer, so a ship
+ * is written straight into the generator's buffer without reflection and without allocating.
+ */
+public class ShipJsonModule extends SimpleModule {
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString PLANET = new SerializedString("planet");
+    private static final SerializedString SHIP_TYPE = new SerializedString("shipType");
+    private static final SerializedString PROD_DATE = new SerializedString("prodDate");
+    private static final SerializedString IS_USED = new SerializedString("isUsed");
+    private static final SerializedString SPEED = new SerializedString("speed");
+    private static final SerializedString CREW_SIZE = new SerializedString("crewSize");
+    private static final SerializedString RATING = new SerializedString("rating");
+
+    private static final SerializedString[] SHIP_TYPES = new SerializedString[ShipType.values().length];
+
+    // enough for the longest value writeDecimal formats, "9999999.99"
+    private static final ThreadLocal<char[]> DIGITS = ThreadLocal.withInitial(() -> new char[16]);
+
+    static {
+        for (ShipType shipType : ShipType.values()) {
+            SHIP_TYPES[shipType.ordinal()] = new SerializedString(shipType.name());
+        }
+    }
+
+    public ShipJsonModule() {
+        super("ShipJsonModule");
+        addSerializer(Ship.class, new StdSerializer<Ship>(Ship.class) {
+            @Override
+            public void serialize(Ship ship, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                write(gen, ship.getId(), ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(),
+                        ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+            }
+        });
+        addSerializer(ShipView.class, new StdSerializer<ShipView>(ShipView.class) {
+            @Override
+            public void serialize(ShipView ship, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                write(gen, ship.getId(), ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(),
+                        ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+            }
+        });
+    }
+
+    private static void write(JsonGenerator gen, Long id, String name, String planet, ShipType shipType, Date prodDate,
+                              Boolean isUsed, Double speed, Integer crewSize, Double rating) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(ID);
+        if (id == null) gen.writeNull();
+        else gen.writeNumber(id);
+        gen.writeFieldName(NAME);
+        gen.writeString(name);
+        gen.writeFieldName(PLANET);
+        gen.writeString(planet);
+        gen.writeFieldName(SHIP_TYPE);
+        if (shipType == null) gen.writeNull();
+        else gen.writeString(SHIP_TYPES[shipType.ordinal()]);
+        gen.writeFieldName(PROD_DATE);
+        if (prodDate == null) gen.writeNull();
+        else gen.writeNumber(prodDate.getTime());
+        gen.writeFieldName(IS_USED);
+        if (isUsed == null) gen.writeNull();
+        else gen.writeBoolean(isUsed);
+        gen.writeFieldName(SPEED);
+        if (speed == null) gen.writeNull();
+        else writeDecimal(gen, speed);
+        gen.writeFieldName(CREW_SIZE);
+        if (crewSize == null) gen.writeNull();
+        else gen.writeNumber(crewSize);
+        gen.writeFieldName(RATING);
+        if (rating == null) gen.writeNull();
+        else writeDecimal(gen, rating);
+        gen.writeEndObject();
+    }
+
+    /**
+     * Writes the text Double.toString gives for value. Speed and rating are rounded to hundredths, and for such
+     * a value in [0.01, 1e7) that text is the integer part, a point and the hundredths without trailing zeros
+     * (but at least one digit), which is built here without the String; anything else goes to Jackson.
+     */
+    static void writeDecimal(JsonGenerator gen, double value) throws IOException {
+        long hundredths = Math.round(value * 100);
+        if (hundredths <= 0 || hundredths >= 1_000_000_000L || hundredths / 100d != value) {
+            gen.writeNumber(value);
+            return;
+        }
+        char[] digits = DIGITS.get();
+        int end = digits.length;
+        int fraction = (int) (hundredths % 100);
+        if (fraction % 10 != 0) digits[--end] = (char) ('0' + fraction % 10);
+        digits[--end] = (char) ('0' + fraction / 10);
+        digits[--end] = '.';
+        long integer = hundredths / 100;
+        do {
+            digits[--end] = (char) ('0' + integer % 10);
+            integer /= 10;
+        } while (integer > 0);
+        gen.writeRawValue(digits, end, digits.length - end);
+    }
+}
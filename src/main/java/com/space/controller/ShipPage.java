@@ -0,0 +1,31 @@
+package com.space.controller;
+
+import java.util.List;
+
+public class ShipPage {
+    private final List<ShipView> content;
+    private final long total;
+    private final String nextCursor;
+
+    public ShipPage(List<ShipView> content, long total) {
+        this(content, total, null);
+    }
+
+    public ShipPage(List<ShipView> content, long total, String nextCursor) {
+        this.content = content;
+        this.total = total;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ShipView> getContent() {
+        return content;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -3,6 +3,14 @@ package com.space.controller;
 import com.space.model.ShipType;
 
 public class ShipRequest {
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getName() {
         return name;
     }
@@ -59,6 +67,7 @@ public class ShipRequest {
         this.crewSize = crewSize;
     }
 
+    private Long id;
     private String name;
     private String planet;
     private ShipType shipType;
@@ -0,0 +1,76 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import com.space.model.ShipType;
+
+import java.util.Date;
+
+/**
+ * Read-only copy of a ship for list responses, serialized exactly like Ship. Queries select it with a
+ * constructor expression, so the rows never enter the persistence context.
+ */
+public class ShipView {
+    private final Long id;
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Date prodDate;
+    private final Boolean isUsed;
+    private final Double speed;
+    private final Integer crewSize;
+    private final Double rating;
+
+    public ShipView(Long id, String name, String planet, ShipType shipType, Date prodDate,
+                    Boolean isUsed, Double speed, Integer crewSize, Double rating) {
+        this.id = id;
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType;
+        this.prodDate = prodDate;
+        this.isUsed = isUsed;
+        this.speed = speed;
+        this.crewSize = crewSize;
+        this.rating = rating;
+    }
+
+    public static ShipView of(Ship ship) {
+        return new ShipView(ship.getId(), ship.getName(), ship.getPlanet(), ship.getShipType(), ship.getProdDate(),
+                ship.getUsed(), ship.getSpeed(), ship.getCrewSize(), ship.getRating());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public Date getProdDate() {
+        return prodDate;
+    }
+
+    public Boolean getUsed() {
+        return isUsed;
+    }
+
+    public Double getSpeed() {
+        return speed;
+    }
+
+    public Integer getCrewSize() {
+        return crewSize;
+    }
+
+    public Double getRating() {
+        return rating;
+    }
+}
@@ -1,14 +1,18 @@
 package com.space.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.space.model.ShipType;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
+import java.util.Locale;
 
 @Entity
 public class Ship {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "ship-id")
+    @GenericGenerator(name = "ship-id", strategy = "com.space.config.HibernateIdGenerator")
     private Long id;
     private String name;
     private String planet;
@@ -23,6 +27,19 @@ public class Ship {
     private Integer crewSize;
     private Double rating;
 
+    @Version
+    @JsonIgnore
+    private Long version;
+
+    // lowercase copies of name and planet computed by the database, indexed for the case-insensitive filters;
+    // the setters keep them in step on this copy
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private String nameLower;
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private String planetLower;
+
     public Long getId() {
         return id;
     }
@@ -37,6 +54,11 @@ public class Ship {
 
     public void setName(String name) {
         this.name = name;
+        this.nameLower = lower(name);
+    }
+
+    public String getNameLower() {
+        return nameLower;
     }
 
     public String getPlanet() {
@@ -45,6 +67,11 @@ public class Ship {
 
     public void setPlanet(String planet) {
         this.planet = planet;
+        this.planetLower = lower(planet);
+    }
+
+    public String getPlanetLower() {
+        return planetLower;
     }
 
     public ShipType getShipType() {
@@ -95,4 +122,15 @@ public class Ship {
         this.rating = rating;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,28 @@
+package com.space.repository;
+
+/**
+ * EXPLAIN output of one list statement and whether the database reads the whole ship table for it.
+ */
+public class QueryPlan {
+    private final String sql;
+    private final String plan;
+    private final boolean fullScan;
+
+    public QueryPlan(String sql, String plan, boolean fullScan) {
+        this.sql = sql;
+        this.plan = plan;
+        this.fullScan = fullScan;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    public boolean isFullScan() {
+        return fullScan;
+    }
+}
@@ -0,0 +1,75 @@
+package com.space.repository;
+
+/**
+ * Reusable column buffers for one keyset chunk of rating inputs, so a recomputation pass allocates once.
+ */
+public class RatingChunk {
+    private final long[] ids;
+    private final double[] speeds;
+    private final boolean[] used;
+    private final long[] prodDates;
+    private final double[] ratings;
+    private final long[] versions;
+    private int size;
+
+    public RatingChunk(int capacity) {
+        ids = new long[capacity];
+        speeds = new double[capacity];
+        used = new boolean[capacity];
+        prodDates = new long[capacity];
+        ratings = new double[capacity];
+        versions = new long[capacity];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void add(long id, double speed, boolean isUsed, long prodDate, double rating, long version) {
+        ids[size] = id;
+        speeds[size] = speed;
+        used[size] = isUsed;
+        prodDates[size] = prodDate;
+        ratings[size] = rating;
+        versions[size] = version;
+        size++;
+    }
+
+    public int capacity() {
+        return ids.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] getIds() {
+        return ids;
+    }
+
+    public double[] getSpeeds() {
+        return speeds;
+    }
+
+    public boolean[] getUsed() {
+        return used;
+    }
+
+    public long[] getProdDates() {
+        return prodDates;
+    }
+
+    /**
+     * Stored ratings, NaN where the column is empty.
+     */
+    public double[] getRatings() {
+        return ratings;
+    }
+
+    /**
+     * Row versions the inputs were read at.
+     */
+    public long[] getVersions() {
+        return versions;
+    }
+}
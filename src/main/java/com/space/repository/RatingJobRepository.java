@@ -0,0 +1,84 @@
+package com.space.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Keyset chunk reads of the rating inputs and checkpointed rating write-back for the recomputation job.
+ */
+@Repository
+public class RatingJobRepository {
+    private static final String CHUNK = "SELECT id, speed, isUsed, prodDate, rating, version FROM ship WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String UPDATE_RATING = "UPDATE ship SET rating = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RatingJobRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * @return the last id the job has finished, 0 when it has not started or completed its last pass
+     */
+    public long loadCheckpoint(String job) {
+        List<Long> lastIds = jdbcTemplate.queryForList("SELECT lastId FROM job_checkpoint WHERE name = ?", Long.class, job);
+        return lastIds.isEmpty() ? 0 : lastIds.get(0);
+    }
+
+    /**
+     * Reads up to chunk.capacity() ships with an id above afterId into chunk, in id order.
+     * Rows without a speed or production date cannot be rated and are read with a NaN speed.
+     */
+    public void readChunk(long afterId, RatingChunk chunk) {
+        chunk.clear();
+        jdbcTemplate.query(CHUNK, resultSet -> {
+            double speed = resultSet.getDouble(2);
+            boolean noSpeed = resultSet.wasNull();
+            boolean used = resultSet.getBoolean(3);
+            Date prodDate = resultSet.getDate(4);
+            double rating = resultSet.getDouble(5);
+            boolean noRating = resultSet.wasNull();
+            chunk.add(resultSet.getLong(1), noSpeed || prodDate == null ? Double.NaN : speed, used,
+                    prodDate == null ? 0 : prodDate.getTime(), noRating ? Double.NaN : rating, resultSet.getLong(6));
+        }, afterId, chunk.capacity());
+    }
+
+    /**
+     * Writes the changed ratings of the rows still at the version they were read at and moves the checkpoint
+     * in one transaction, so a restart never skips or repeats a write. A row written since it was read got its
+     * rating from that write and is left alone.
+     *
+     * @return the number of rows updated for each id, 0 where the row changed or went away since it was read
+     */
+    @Transactional
+    public int[] writeChunk(String job, long[] ids, long[] versions, double[] ratings, int length, long lastId) {
+        int[] updated = new int[0];
+        if (length > 0) {
+            updated = jdbcTemplate.batchUpdate(UPDATE_RATING, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setDouble(1, ratings[i]);
+                    statement.setLong(2, ids[i]);
+                    statement.setLong(3, versions[i]);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return length;
+                }
+            });
+        }
+        if (jdbcTemplate.update("UPDATE job_checkpoint SET lastId = ? WHERE name = ?", lastId, job) == 0) {
+            jdbcTemplate.update("INSERT INTO job_checkpoint(name, lastId) VALUES (?, ?)", job, lastId);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,109 @@
+package com.space.repository;
+
+import com.space.config.IdGenerator;
+import com.space.model.Ship;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes many ships with JDBC batches of batchSize statements instead of one round trip per row.
+ * Each call runs in a single transaction, so a failing batch leaves nothing behind.
+ */
+@Repository
+public class ShipBatchWriter {
+    private static final String INSERT = "INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating, id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE ship SET name = ?, planet = ?, shipType = ?, prodDate = ?, isUsed = ?, " +
+            "speed = ?, crewSize = ?, rating = ?, version = version + 1 WHERE id = ? AND version = ?";
+    private static final String DELETE = "DELETE FROM ship WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdGenerator idGenerator;
+    private final int batchSize;
+
+    public ShipBatchWriter(DataSource dataSource, IdGenerator idGenerator, @Value("${ship.batch.size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.idGenerator = idGenerator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Inserts the ships with ids from the id generator and sets the ids on them. Ids are taken batch by
+     * batch, so a large insert does not draw more ids ahead of the clock than the generator allows.
+     */
+    @Transactional
+    public void insert(List<Ship> ships) {
+        for (int from = 0; from < ships.size(); from += batchSize) {
+            List<Ship> chunk = ships.subList(from, Math.min(from + batchSize, ships.size()));
+            for (Ship ship : chunk) {
+                ship.setId(idGenerator.nextId());
+                ship.setVersion(0L);
+            }
+            jdbcTemplate.batchUpdate(INSERT, chunk, batchSize, (statement, ship) -> {
+                bind(statement, ship);
+                statement.setLong(9, ship.getId());
+            });
+        }
+    }
+
+    /**
+     * Updates the ships still at the version they were read with and bumps the version of those on them.
+     *
+     * @return the number of updated rows for each ship, in the order of the ships; 0 where the row
+     * was written or deleted since it was read
+     */
+    @Transactional
+    public int[] update(List<Ship> ships) {
+        int[] updated = new int[ships.size()];
+        if (ships.isEmpty()) return updated;
+        int i = 0;
+        for (int[] chunk : jdbcTemplate.batchUpdate(UPDATE, ships, batchSize, (statement, ship) -> {
+            bind(statement, ship);
+            statement.setLong(9, ship.getId());
+            statement.setLong(10, ship.getVersion());
+        })) {
+            for (int count : chunk) {
+                updated[i++] = count;
+            }
+        }
+        for (i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) ships.get(i).setVersion(ships.get(i).getVersion() + 1);
+        }
+        return updated;
+    }
+
+    /**
+     * @return the number of deleted rows for each id, in the order of the ids
+     */
+    @Transactional
+    public int[] delete(List<Long> ids) {
+        int[] deleted = new int[ids.size()];
+        if (ids.isEmpty()) return deleted;
+        int i = 0;
+        for (int[] chunk : jdbcTemplate.batchUpdate(DELETE, ids, batchSize, (statement, id) -> statement.setLong(1, id))) {
+            for (int count : chunk) {
+                deleted[i++] = count;
+            }
+        }
+        return deleted;
+    }
+
+    private static void bind(PreparedStatement statement, Ship ship) throws SQLException {
+        statement.setString(1, ship.getName());
+        statement.setString(2, ship.getPlanet());
+        statement.setString(3, ship.getShipType().name());
+        statement.setDate(4, new Date(ship.getProdDate().getTime()));
+        statement.setBoolean(5, ship.getUsed());
+        statement.setDouble(6, ship.getSpeed());
+        statement.setInt(7, ship.getCrewSize());
+        statement.setDouble(8, ship.getRating());
+    }
+}
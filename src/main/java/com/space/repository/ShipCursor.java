@@ -0,0 +1,79 @@
+package com.space.repository;
+
+import com.space.controller.ShipOrder;
+import com.space.exceptions.BadRequestException;
+import com.space.controller.ShipView;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Continuation token of keyset pagination: the sort key and id of the last ship of a page.
+ * Double keys are kept as their IEEE bits and dates as epoch millis, so every key is a long.
+ */
+public class ShipCursor {
+    private final ShipOrder order;
+    private final long key;
+    private final long id;
+
+    public ShipCursor(ShipOrder order, long key, long id) {
+        this.order = order;
+        this.key = key;
+        this.id = id;
+    }
+
+    public static ShipCursor after(ShipOrder order, ShipView ship) {
+        long key;
+        switch (order) {
+            case SPEED:
+                key = Double.doubleToLongBits(ship.getSpeed());
+                break;
+            case DATE:
+                key = ship.getProdDate().getTime();
+                break;
+            case RATING:
+                key = Double.doubleToLongBits(ship.getRating());
+                break;
+            default:
+                key = ship.getId();
+        }
+        return new ShipCursor(order, key, ship.getId());
+    }
+
+    public static ShipCursor decode(String token, ShipOrder order) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+        if (parts.length != 3 || !parts[0].equals(order.name())) throw new BadRequestException();
+
+        try {
+            return new ShipCursor(order, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    public String encode() {
+        String value = order.name() + ":" + key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ShipOrder getOrder() {
+        return order;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public double getDoubleKey() {
+        return Double.longBitsToDouble(key);
+    }
+
+    public long getId() {
+        return id;
+    }
+}
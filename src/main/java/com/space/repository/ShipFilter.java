@@ -0,0 +1,143 @@
+package com.space.repository;
+
+import com.space.model.ShipType;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Filter parameters of the ship list with the request conventions already applied:
+ * empty strings and zero bounds mean "not set" and are stored as null, name and planet
+ * are matched case-insensitively and kept lower-cased. Two filters selecting the same ships
+ * are therefore equal and can share cached results.
+ */
+public class ShipFilter {
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Long after;
+    private final Long before;
+    private final Boolean isUsed;
+    private final Double minSpeed;
+    private final Double maxSpeed;
+    private final Integer minCrewSize;
+    private final Integer maxCrewSize;
+    private final Double minRating;
+    private final Double maxRating;
+
+    public ShipFilter(String name, String planet,
+                      ShipType shipType, Long after, Long before,
+                      Boolean isUsed,
+                      Double minSpeed, Double maxSpeed,
+                      Integer minCrewSize, Integer maxCrewSize,
+                      Double minRating, Double maxRating) {
+        this.name = lower(unset(name));
+        this.planet = lower(unset(planet));
+        this.shipType = shipType;
+        this.after = unset(after);
+        this.before = unset(before);
+        this.isUsed = isUsed;
+        this.minSpeed = unset(minSpeed);
+        this.maxSpeed = unset(maxSpeed);
+        this.minCrewSize = unset(minCrewSize);
+        this.maxCrewSize = unset(maxCrewSize);
+        this.minRating = unset(minRating);
+        this.maxRating = unset(maxRating);
+    }
+
+    private static String unset(String value) {
+        if (value == null || value.isEmpty()) return null;
+        return value;
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    // 0 means "no bound" for every numeric filter
+    private static <T extends Number> T unset(T value) {
+        if (value == null || value.doubleValue() == 0) return null;
+        return value;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getPlanet() {
+        return planet;
+    }
+
+    public ShipType getShipType() {
+        return shipType;
+    }
+
+    public Long getAfter() {
+        return after;
+    }
+
+    public Date getAfterDate() {
+        return after == null ? null : new Date(after);
+    }
+
+    public Long getBefore() {
+        return before;
+    }
+
+    public Date getBeforeDate() {
+        return before == null ? null : new Date(before);
+    }
+
+    public Boolean getUsed() {
+        return isUsed;
+    }
+
+    public Double getMinSpeed() {
+        return minSpeed;
+    }
+
+    public Double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public Integer getMinCrewSize() {
+        return minCrewSize;
+    }
+
+    public Integer getMaxCrewSize() {
+        return maxCrewSize;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public Double getMaxRating() {
+        return maxRating;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ShipFilter that = (ShipFilter) o;
+        return Objects.equals(name, that.name) &&
+                Objects.equals(planet, that.planet) &&
+                shipType == that.shipType &&
+                Objects.equals(after, that.after) &&
+                Objects.equals(before, that.before) &&
+                Objects.equals(isUsed, that.isUsed) &&
+                Objects.equals(minSpeed, that.minSpeed) &&
+                Objects.equals(maxSpeed, that.maxSpeed) &&
+                Objects.equals(minCrewSize, that.minCrewSize) &&
+                Objects.equals(maxCrewSize, that.maxCrewSize) &&
+                Objects.equals(minRating, that.minRating) &&
+                Objects.equals(maxRating, that.maxRating);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+    }
+}
@@ -0,0 +1,101 @@
+package com.space.repository;
+
+import com.space.controller.ShipOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs EXPLAIN for the statement a list page of the given filter and order issues. The statement has the same
+ * shape as the one ShipSpecification and ShipRepositoryImpl build, with the filter values bound as parameters.
+ * A walk over the whole table or a whole index counts as a full scan: access type ALL or index in MySQL,
+ * an index comment without seek conditions (tableScan or a bare index name) in the H2 plan text.
+ */
+@Repository
+public class ShipPlanExplainer {
+    // "/* PUBLIC.SHIP.tableScan */" or "/* PUBLIC.PRIMARY_KEY_2 */", a seek reads "/* PUBLIC.SHIP_SPEED_ID: SPEED >= ?1 */"
+    private static final Pattern H2_SCAN = Pattern.compile("/\\* [\\w.\"]+ \\*/");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShipPlanExplainer(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public QueryPlan explain(ShipFilter filter, ShipOrder order, int pageSize) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        List<Integer> types = new ArrayList<>();
+        if (filter.getName() != null) add(conditions, args, types, "nameLower LIKE ?", "%" + filter.getName() + "%", Types.VARCHAR);
+        if (filter.getPlanet() != null) add(conditions, args, types, "planetLower LIKE ?", "%" + filter.getPlanet() + "%", Types.VARCHAR);
+        if (filter.getShipType() != null) add(conditions, args, types, "shipType = ?", filter.getShipType().name(), Types.VARCHAR);
+        if (filter.getUsed() != null) add(conditions, args, types, "isUsed = ?", filter.getUsed(), Types.BOOLEAN);
+        if (filter.getAfter() != null) add(conditions, args, types, "prodDate >= ?", new java.sql.Date(filter.getAfter()), Types.DATE);
+        if (filter.getBefore() != null) add(conditions, args, types, "prodDate <= ?", new java.sql.Date(filter.getBefore()), Types.DATE);
+        if (filter.getMinSpeed() != null) add(conditions, args, types, "speed >= ?", filter.getMinSpeed(), Types.DOUBLE);
+        if (filter.getMaxSpeed() != null) add(conditions, args, types, "speed <= ?", filter.getMaxSpeed(), Types.DOUBLE);
+        if (filter.getMinCrewSize() != null) add(conditions, args, types, "crewSize >= ?", filter.getMinCrewSize(), Types.INTEGER);
+        if (filter.getMaxCrewSize() != null) add(conditions, args, types, "crewSize <= ?", filter.getMaxCrewSize(), Types.INTEGER);
+        if (filter.getMinRating() != null) add(conditions, args, types, "rating >= ?", filter.getMinRating(), Types.DOUBLE);
+        if (filter.getMaxRating() != null) add(conditions, args, types, "rating <= ?", filter.getMaxRating(), Types.DOUBLE);
+
+        StringBuilder sql = new StringBuilder("SELECT id FROM ship");
+        if (!conditions.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        sql.append(" ORDER BY ").append(order.getFieldName());
+        if (order != ShipOrder.ID) sql.append(", id");
+        sql.append(" LIMIT ?");
+        args.add(pageSize);
+        types.add(Types.INTEGER);
+
+        PreparedStatementCreatorFactory factory = new PreparedStatementCreatorFactory("EXPLAIN " + sql,
+                types.stream().mapToInt(Integer::intValue).toArray());
+        PreparedStatementCreator statement = factory.newPreparedStatementCreator(args);
+        return jdbcTemplate.query(statement, (ResultSetExtractor<QueryPlan>) resultSet -> plan(sql.toString(), resultSet));
+    }
+
+    private static void add(List<String> conditions, List<Object> args, List<Integer> types, String condition, Object arg, int type) {
+        conditions.add(condition);
+        args.add(arg);
+        types.add(type);
+    }
+
+    private static QueryPlan plan(String sql, ResultSet resultSet) throws SQLException {
+        ResultSetMetaData meta = resultSet.getMetaData();
+        int typeColumn = 0;
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            if ("type".equalsIgnoreCase(meta.getColumnLabel(i))) typeColumn = i;
+        }
+
+        StringBuilder plan = new StringBuilder();
+        boolean fullScan = false;
+        while (resultSet.next()) {
+            if (plan.length() > 0) plan.append('\n');
+            if (typeColumn > 0) {
+                // MySQL: one row per table with the access type, chosen key and estimated rows
+                String type = resultSet.getString(typeColumn);
+                fullScan |= "ALL".equalsIgnoreCase(type) || "index".equalsIgnoreCase(type);
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    if (i > 1) plan.append(' ');
+                    plan.append(meta.getColumnLabel(i)).append('=').append(resultSet.getString(i));
+                }
+            } else {
+                // H2: a single PLAN column with the statement annotated by the chosen index
+                String text = resultSet.getString(1);
+                fullScan |= H2_SCAN.matcher(text).find();
+                plan.append(text);
+            }
+        }
+        return new QueryPlan(sql, plan.toString(), fullScan);
+    }
+}
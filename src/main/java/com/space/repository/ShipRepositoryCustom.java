@@ -0,0 +1,28 @@
+package com.space.repository;
+
+import com.space.controller.ShipOrder;
+import com.space.controller.ShipView;
+import com.space.model.Ship;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ShipRepositoryCustom {
+
+    /**
+     * Ids of every ship of the filter, sorted by order and then id.
+     */
+    List<Long> findIds(ShipFilter filter, ShipOrder order);
+
+    /**
+     * Forward-only cursor over every ship of the filter, already detached. Must be closed, inside a transaction.
+     */
+    Stream<Ship> streamFiltered(ShipFilter filter, ShipOrder order);
+
+    /**
+     * Page of the filter as views: after the cursor when it is given, otherwise from offset.
+     */
+    @Transactional(readOnly = true)
+    List<ShipView> findViews(ShipFilter filter, ShipOrder order, ShipCursor cursor, int offset, int pageSize);
+}
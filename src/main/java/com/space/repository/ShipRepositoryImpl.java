@@ -0,0 +1,99 @@
+package com.space.repository;
+
+import com.space.controller.ShipOrder;
+import com.space.controller.ShipView;
+import com.space.model.Ship;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ShipRepositoryImpl implements ShipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${ship.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Override
+    public List<ShipView> findViews(ShipFilter filter, ShipOrder order, ShipCursor cursor, int offset, int pageSize) {
+        return entityManager.createQuery(orderedQuery(ShipView.class, filter, order, cursor))
+                .setHint(QueryHints.HINT_READONLY, true)
+                .setFirstResult(cursor == null ? offset : 0)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+
+    @Override
+    public List<Long> findIds(ShipFilter filter, ShipOrder order) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ship> ship = query.from(Ship.class);
+        Path<Long> id = ship.get(ShipOrder.ID.getFieldName());
+        query.select(id).where(ShipSpecification.of(filter).predicates(ship, cb).toArray(new Predicate[0]));
+        query.orderBy(order == ShipOrder.ID ? Collections.singletonList(cb.asc(id)) : Arrays.asList(cb.asc(ship.get(order.getFieldName())), cb.asc(id)));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public Stream<Ship> streamFiltered(ShipFilter filter, ShipOrder order) {
+        return entityManager.createQuery(orderedQuery(Ship.class, filter, order, null))
+                .setHint(QueryHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()
+                // rows are fully loaded on hydration, detaching keeps the persistence context from growing with the result
+                .peek(entityManager::detach);
+    }
+
+    // selects the entity, or constructs resultType from all columns in ShipView constructor order
+    private <T> CriteriaQuery<T> orderedQuery(Class<T> resultType, ShipFilter filter, ShipOrder order, ShipCursor cursor) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(resultType);
+        Root<Ship> ship = query.from(Ship.class);
+        if (resultType != Ship.class) {
+            query.multiselect(ship.get("id"), ship.get("name"), ship.get("planet"), ship.get("shipType"), ship.get("prodDate"),
+                    ship.get("isUsed"), ship.get("speed"), ship.get("crewSize"), ship.get("rating"));
+        }
+
+        List<Predicate> predicates = ShipSpecification.of(filter).predicates(ship, cb);
+        if (cursor != null) predicates.add(seek(cb, ship, cursor));
+
+        Path<Object> key = ship.get(order.getFieldName());
+        Path<Object> id = ship.get(ShipOrder.ID.getFieldName());
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(order == ShipOrder.ID ? Collections.singletonList(cb.asc(id)) : Arrays.asList(cb.asc(key), cb.asc(id)));
+        return query;
+    }
+
+    // (key, id) > (cursor key, cursor id), spelled out so MySQL can range-scan the (key, id) index
+    private Predicate seek(CriteriaBuilder cb, Root<Ship> ship, ShipCursor cursor) {
+        Path<Long> id = ship.get("id");
+        switch (cursor.getOrder()) {
+            case SPEED:
+            case RATING: {
+                Path<Double> key = ship.get(cursor.getOrder().getFieldName());
+                double value = cursor.getDoubleKey();
+                return cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, cursor.getId())));
+            }
+            case DATE: {
+                Path<Date> key = ship.get(cursor.getOrder().getFieldName());
+                Date value = new Date(cursor.getKey());
+                return cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, cursor.getId())));
+            }
+            default:
+                return cb.greaterThan(id, cursor.getId());
+        }
+    }
+}
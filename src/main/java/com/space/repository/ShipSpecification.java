@@ -0,0 +1,64 @@
+package com.space.repository;
+
+import com.space.model.Ship;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WHERE clause of a ShipFilter with a predicate only for each supplied value, so every filter combination
+ * gets its own tight statement instead of one plan covering all of them through "IS NULL OR" branches.
+ * Values are bound as parameters (hibernate.criteria.literal_handling_mode=BIND), so the SQL text,
+ * and with it the prepared statement cache key, depends only on which filters are present.
+ */
+public class ShipSpecification implements Specification<Ship> {
+    private final ShipFilter filter;
+
+    private ShipSpecification(ShipFilter filter) {
+        this.filter = filter;
+    }
+
+    public static ShipSpecification of(ShipFilter filter) {
+        return new ShipSpecification(filter);
+    }
+
+    @Override
+    public Predicate toPredicate(Root<Ship> ship, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        return cb.and(predicates(ship, cb).toArray(new Predicate[0]));
+    }
+
+    List<Predicate> predicates(Root<Ship> ship, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        // ShipFilter already lowercases name and planet, nameLower and planetLower are their indexed lowercase copies
+        if (filter.getName() != null)
+            predicates.add(cb.like(ship.get("nameLower"), "%" + filter.getName() + "%"));
+        if (filter.getPlanet() != null)
+            predicates.add(cb.like(ship.get("planetLower"), "%" + filter.getPlanet() + "%"));
+        if (filter.getShipType() != null)
+            predicates.add(cb.equal(ship.get("shipType"), filter.getShipType()));
+        if (filter.getUsed() != null)
+            predicates.add(cb.equal(ship.get("isUsed"), filter.getUsed()));
+        if (filter.getAfter() != null)
+            predicates.add(cb.greaterThanOrEqualTo(ship.get("prodDate"), filter.getAfterDate()));
+        if (filter.getBefore() != null)
+            predicates.add(cb.lessThanOrEqualTo(ship.get("prodDate"), filter.getBeforeDate()));
+        if (filter.getMinSpeed() != null)
+            predicates.add(cb.greaterThanOrEqualTo(ship.get("speed"), filter.getMinSpeed()));
+        if (filter.getMaxSpeed() != null)
+            predicates.add(cb.lessThanOrEqualTo(ship.get("speed"), filter.getMaxSpeed()));
+        if (filter.getMinCrewSize() != null)
+            predicates.add(cb.greaterThanOrEqualTo(ship.get("crewSize"), filter.getMinCrewSize()));
+        if (filter.getMaxCrewSize() != null)
+            predicates.add(cb.lessThanOrEqualTo(ship.get("crewSize"), filter.getMaxCrewSize()));
+        if (filter.getMinRating() != null)
+            predicates.add(cb.greaterThanOrEqualTo(ship.get("rating"), filter.getMinRating()));
+        if (filter.getMaxRating() != null)
+            predicates.add(cb.lessThanOrEqualTo(ship.get("rating"), filter.getMaxRating()));
+        return predicates;
+    }
+}
@@ -0,0 +1,208 @@
+package com.space.service;
+
+import com.space.config.Histogram;
+import com.space.config.MetricsRegistry;
+import com.space.controller.ShipOrder;
+import com.space.repository.QueryPlan;
+import com.space.repository.ShipFilter;
+import com.space.repository.ShipPlanExplainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts which filter combinations and orders the list endpoints receive and, on request, explains the
+ * statement of each combination against the database, so the ones still served by a full scan show up
+ * together with an index that would let the database seek instead. Recording is a map lookup and a
+ * counter increment; EXPLAIN runs only when the report is asked for.
+ * <p>
+ * With metrics enabled every combination also gets its latency and returned rows in
+ * cosmoport_ship_query_seconds and cosmoport_ship_query_rows_returned_total.
+ */
+@Component
+public class IndexAdvisor {
+    private static final String[] FILTERS = {"name", "planet", "shipType", "isUsed", "after", "before",
+            "minSpeed", "maxSpeed", "minCrewSize", "maxCrewSize", "minRating", "maxRating"};
+    private static final int REPORT_PAGE_SIZE = 3;
+
+    private final ShipPlanExplainer explainer;
+    private final MetricsRegistry metrics;
+    private final boolean enabled;
+    private final ConcurrentMap<Shape, Usage> usages = new ConcurrentHashMap<>();
+
+    public IndexAdvisor(ShipPlanExplainer explainer, MetricsRegistry metrics,
+                        @Value("${ship.index-advisor.enabled:true}") boolean enabled) {
+        this.explainer = explainer;
+        this.metrics = metrics;
+        this.enabled = enabled;
+    }
+
+    public void record(ShipFilter filter, ShipOrder order, long elapsedNanos, int rowsReturned) {
+        if (!enabled && !metrics.isEnabled()) return;
+        Usage usage = usages.computeIfAbsent(new Shape(presentFilters(filter), order), this::usage);
+        usage.count.increment();
+        // the values of the latest request stand in for the combination when it is explained
+        usage.sample = filter;
+        if (usage.timer != null) {
+            usage.timer.record(elapsedNanos);
+            usage.rowsReturned.add(rowsReturned);
+        }
+    }
+
+    public void reset() {
+        usages.clear();
+    }
+
+    /**
+     * @return one entry per recorded filter combination and order, the most requested first
+     */
+    public List<Advice> report() {
+        List<Advice> report = new ArrayList<>();
+        if (!enabled) return report;
+        usages.forEach((shape, usage) -> {
+            QueryPlan plan = explainer.explain(usage.sample, shape.order, REPORT_PAGE_SIZE);
+            report.add(new Advice(filterNames(shape.filters), shape.order, usage.count.sum(), plan.getSql(), plan.getPlan(),
+                    plan.isFullScan(), plan.isFullScan() ? suggestIndex(shape.filters, shape.order) : null));
+        });
+        report.sort(Comparator.comparingLong(Advice::getCount).reversed());
+        return report;
+    }
+
+    private Usage usage(Shape shape) {
+        if (!metrics.isEnabled()) return new Usage(null, null);
+        String filters = shape.filters == 0 ? "none" : String.join(",", filterNames(shape.filters));
+        String order = shape.order.name();
+        return new Usage(
+                metrics.timer("cosmoport_ship_query_seconds", "Duration of ship list queries by filter combination and order.",
+                        "filters", filters, "order", order),
+                metrics.counter("cosmoport_ship_query_rows_returned_total", "Ships returned by list queries by filter combination and order.",
+                        "filters", filters, "order", order));
+    }
+
+    private static int presentFilters(ShipFilter filter) {
+        Object[] values = {filter.getName(), filter.getPlanet(), filter.getShipType(), filter.getUsed(),
+                filter.getAfter(), filter.getBefore(), filter.getMinSpeed(), filter.getMaxSpeed(),
+                filter.getMinCrewSize(), filter.getMaxCrewSize(), filter.getMinRating(), filter.getMaxRating()};
+        int present = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) present |= 1 << i;
+        }
+        return present;
+    }
+
+    private static List<String> filterNames(int filters) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < FILTERS.length; i++) {
+            if ((filters & 1 << i) != 0) names.add(FILTERS[i]);
+        }
+        return names;
+    }
+
+    // equality columns first, then the first range column (or the sort column) and id for the keyset order;
+    // the name and planet filters are '%x%' matches that no B-tree index can seek, so they are left out
+    private static String suggestIndex(int filters, ShipOrder order) {
+        Set<String> columns = new LinkedHashSet<>();
+        if ((filters & 1 << 2) != 0) columns.add("shipType");
+        if ((filters & 1 << 3) != 0) columns.add("isUsed");
+        String range = null;
+        if ((filters & (1 << 4 | 1 << 5)) != 0) range = "prodDate";
+        else if ((filters & (1 << 6 | 1 << 7)) != 0) range = "speed";
+        else if ((filters & (1 << 8 | 1 << 9)) != 0) range = "crewSize";
+        else if ((filters & (1 << 10 | 1 << 11)) != 0) range = "rating";
+        columns.add(range != null ? range : order.getFieldName());
+        columns.add("id");
+        return "(" + String.join(", ", columns) + ")";
+    }
+
+    private static class Shape {
+        private final int filters;
+        private final ShipOrder order;
+
+        private Shape(int filters, ShipOrder order) {
+            this.filters = filters;
+            this.order = order;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Shape shape = (Shape) o;
+            return filters == shape.filters && order == shape.order;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filters, order);
+        }
+    }
+
+    private static class Usage {
+        private final LongAdder count = new LongAdder();
+        private volatile ShipFilter sample;
+        private final Histogram timer;
+        private final LongAdder rowsReturned;
+
+        private Usage(Histogram timer, LongAdder rowsReturned) {
+            this.timer = timer;
+            this.rowsReturned = rowsReturned;
+        }
+    }
+
+    public static class Advice {
+        private final List<String> filters;
+        private final ShipOrder order;
+        private final long count;
+        private final String sql;
+        private final String plan;
+        private final boolean fullScan;
+        private final String suggestedIndex;
+
+        public Advice(List<String> filters, ShipOrder order, long count, String sql, String plan, boolean fullScan, String suggestedIndex) {
+            this.filters = filters;
+            this.order = order;
+            this.count = count;
+            this.sql = sql;
+            this.plan = plan;
+            this.fullScan = fullScan;
+            this.suggestedIndex = suggestedIndex;
+        }
+
+        public List<String> getFilters() {
+            return filters;
+        }
+
+        public ShipOrder getOrder() {
+            return order;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getPlan() {
+            return plan;
+        }
+
+        public boolean isFullScan() {
+            return fullScan;
+        }
+
+        public String getSuggestedIndex() {
+            return suggestedIndex;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Ship rating and production year on primitive epoch millis. The first instant of every year from
+ * MIN_YEAR to MAX_YEAR + 1 in the default time zone is computed once, so a year lookup is an
+ * estimate and at most a couple of comparisons instead of a Calendar per call.
+ */
+@Component
+public class RatingEngine {
+    public static final int MIN_YEAR = 2800;
+    public static final int MAX_YEAR = 3019;
+
+    private static final long AVERAGE_YEAR_MILLIS = 31_556_952_000L;
+
+    private final TimeZone timeZone;
+    // yearStarts[i] is the first millisecond of MIN_YEAR + i, the last element ends MAX_YEAR
+    private final long[] yearStarts = new long[MAX_YEAR - MIN_YEAR + 2];
+
+    public RatingEngine() {
+        this(TimeZone.getDefault());
+    }
+
+    RatingEngine(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.clear();
+        for (int i = 0; i < yearStarts.length; i++) {
+            calendar.set(MIN_YEAR + i, Calendar.JANUARY, 1, 0, 0, 0);
+            yearStarts[i] = calendar.getTimeInMillis();
+        }
+    }
+
+    public boolean isValidProdDate(long epochMillis) {
+        return epochMillis >= yearStarts[0] && epochMillis < yearStarts[yearStarts.length - 1];
+    }
+
+    public int yearOf(long epochMillis) {
+        if (!isValidProdDate(epochMillis)) return slowYearOf(epochMillis);
+
+        int i = (int) ((epochMillis - yearStarts[0]) / AVERAGE_YEAR_MILLIS);
+        if (i > yearStarts.length - 2) i = yearStarts.length - 2;
+        while (epochMillis < yearStarts[i]) i--;
+        while (epochMillis >= yearStarts[i + 1]) i++;
+        return MIN_YEAR + i;
+    }
+
+    public double rating(double speed, boolean isUsed, long prodDate) {
+        double k = isUsed ? 0.5d : 1d;
+        double result = (80 * speed * k) / (MAX_YEAR - yearOf(prodDate) + 1);
+        return Math.round(result * 100) / 100d;
+    }
+
+    /**
+     * Rates the first length ships given as parallel columns into ratings.
+     */
+    public void rate(double[] speeds, boolean[] used, long[] prodDates, double[] ratings, int length) {
+        rate(speeds, used, prodDates, ratings, 0, length);
+    }
+
+    /**
+     * Rates the ships from index from (inclusive) to to (exclusive), so disjoint ranges can be rated in parallel.
+     */
+    public void rate(double[] speeds, boolean[] used, long[] prodDates, double[] ratings, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ratings[i] = rating(speeds[i], used[i], prodDates[i]);
+        }
+    }
+
+    private int slowYearOf(long epochMillis) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(epochMillis);
+        return calendar.get(Calendar.YEAR);
+    }
+}
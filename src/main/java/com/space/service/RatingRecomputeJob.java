@@ -0,0 +1,122 @@
+package com.space.service;
+
+import com.space.repository.RatingChunk;
+import com.space.repository.RatingJobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Recomputes stored ratings after a change of the rating formula. A pass walks the ship table in id order
+ * in chunks, rates each chunk in parallel slices, writes back only the ratings that differ and checkpoints
+ * the last id with them, so an interrupted pass resumes where it stopped. A row written by someone else between
+ * the read and the write-back is skipped. Throughput is capped at rowsPerSecond.
+ */
+@Component
+public class RatingRecomputeJob {
+    static final String NAME = "rating-recompute";
+
+    private static final int MIN_SLICE = 1024;
+
+    private final RatingJobRepository jobRepository;
+    private final RatingEngine ratingEngine;
+    private final ShipService shipService;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int rowsPerSecond;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public RatingRecomputeJob(RatingJobRepository jobRepository, RatingEngine ratingEngine, ShipService shipService,
+                              @Value("${ship.rating-job.enabled:false}") boolean enabled,
+                              @Value("${ship.rating-job.chunk-size:5000}") int chunkSize,
+                              @Value("${ship.rating-job.rows-per-second:20000}") int rowsPerSecond) {
+        this.jobRepository = jobRepository;
+        this.ratingEngine = ratingEngine;
+        this.shipService = shipService;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    @Scheduled(initialDelayString = "${ship.rating-job.initial-delay-ms:60000}", fixedDelayString = "${ship.rating-job.interval-ms:3600000}")
+    public void scheduled() throws InterruptedException {
+        if (enabled) recompute();
+    }
+
+    /**
+     * Runs the pass from the checkpoint to the end of the table, unless one is already running.
+     *
+     * @return the number of ratings rewritten, -1 when another pass was running
+     */
+    public long recompute() throws InterruptedException {
+        if (!running.compareAndSet(false, true)) return -1;
+        try {
+            return pass();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long pass() throws InterruptedException {
+        RatingChunk chunk = new RatingChunk(chunkSize);
+        double[] computed = new double[chunkSize];
+        long[] changedIds = new long[chunkSize];
+        long[] changedVersions = new long[chunkSize];
+        double[] changedRatings = new double[chunkSize];
+
+        long lastId = jobRepository.loadCheckpoint(NAME);
+        long started = System.nanoTime();
+        long rows = 0;
+        long rewritten = 0;
+        while (true) {
+            jobRepository.readChunk(lastId, chunk);
+            int size = chunk.size();
+            if (size == 0) {
+                // the pass is complete, the next one starts from the beginning
+                jobRepository.writeChunk(NAME, changedIds, changedVersions, changedRatings, 0, 0);
+                return rewritten;
+            }
+
+            rate(chunk, computed);
+            int changed = 0;
+            for (int i = 0; i < size; i++) {
+                if (Double.isNaN(chunk.getSpeeds()[i]) || Double.compare(computed[i], chunk.getRatings()[i]) == 0) continue;
+                changedIds[changed] = chunk.getIds()[i];
+                changedVersions[changed] = chunk.getVersions()[i];
+                changedRatings[changed] = computed[i];
+                changed++;
+            }
+            lastId = chunk.getIds()[size - 1];
+            int[] updated = jobRepository.writeChunk(NAME, changedIds, changedVersions, changedRatings, changed, lastId);
+            int written = 0;
+            for (int i = 0; i < changed; i++) {
+                if (updated[i] != 0) changedIds[written++] = changedIds[i];
+            }
+            if (written > 0) shipService.reloadShips(changedIds, written);
+
+            rewritten += written;
+            rows += size;
+            throttle(started, rows);
+        }
+    }
+
+    private void rate(RatingChunk chunk, double[] computed) {
+        int size = chunk.size();
+        int slices = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), size / MIN_SLICE));
+        int sliceSize = (size + slices - 1) / slices;
+        IntStream.range(0, slices).parallel().forEach(slice -> ratingEngine.rate(chunk.getSpeeds(), chunk.getUsed(),
+                chunk.getProdDates(), computed, slice * sliceSize, Math.min(size, (slice + 1) * sliceSize)));
+    }
+
+    // sleeps until rows could not have been processed faster than rowsPerSecond
+    private void throttle(long started, long rows) throws InterruptedException {
+        if (rowsPerSecond <= 0) return;
+        long due = started + TimeUnit.SECONDS.toNanos(rows) / rowsPerSecond;
+        long wait = due - System.nanoTime();
+        if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+    }
+}
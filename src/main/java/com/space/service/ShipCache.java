@@ -0,0 +1,112 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded read-through cache of ships by id. Entries are dropped least recently used first
+ * once maxSize is reached and are not served after the time-to-live has passed.
+ * The service puts every ship it writes and evicts every ship it deletes. A put never replaces a newer
+ * version of the ship, and an evicted ship leaves a marker until the time-to-live has passed, so a reader
+ * that loaded a row before a write or delete cannot put the old row back after it.
+ */
+@Component
+public class ShipCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ShipCache(@Value("${ship.cache.max-size:10000}") int maxSize,
+                     @Value("${ship.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() <= ShipCache.this.maxSize) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public synchronized Ship get(Long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt - System.nanoTime() < 0) {
+            entries.remove(id);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        if (entry.ship == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.ship;
+    }
+
+    public synchronized void put(Ship ship) {
+        if (maxSize <= 0) return;
+        long now = System.nanoTime();
+        Entry entry = entries.get(ship.getId());
+        if (entry != null && entry.expiresAt - now >= 0 && entry.version > versionOf(ship)) return;
+        entries.put(ship.getId(), new Entry(ship, versionOf(ship), now + ttlNanos));
+    }
+
+    public synchronized void evict(Long id) {
+        if (maxSize <= 0) return;
+        entries.put(id, new Entry(null, Long.MAX_VALUE, System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static long versionOf(Ship ship) {
+        return ship.getVersion() == null ? 0 : ship.getVersion();
+    }
+
+    // a null ship marks one that was deleted
+    private static final class Entry {
+        private final Ship ship;
+        private final long version;
+        private final long expiresAt;
+
+        Entry(Ship ship, long version, long expiresAt) {
+            this.ship = ship;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.space.service;
+
+import com.space.controller.ShipOrder;
+import com.space.repository.ShipFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of list pages (ship ids only) and counts keyed by the normalized filter.
+ * Every write bumps the generation; entries of an older generation are never served.
+ */
+@Component
+public class ShipQueryCache {
+    static final long UNKNOWN_TOTAL = -1;
+
+    private final int maxEntries;
+    private final Map<Object, Entry> entries;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ShipQueryCache(@Value("${ship.query-cache.max-entries:1000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                return size() > ShipQueryCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Read before running a query and pass to put, so a result computed across a write is stored already stale.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    public Entry getPage(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize, String cursor) {
+        return get(new PageKey(filter, order, pageNumber, pageSize, cursor));
+    }
+
+    public void putPage(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize, String cursor,
+                        long[] ids, long total, String nextCursor, long generation) {
+        put(new PageKey(filter, order, pageNumber, pageSize, cursor), new Entry(generation, ids, total, nextCursor));
+    }
+
+    public Entry getCount(ShipFilter filter) {
+        return get(filter);
+    }
+
+    public void putCount(ShipFilter filter, long count, long generation) {
+        put(filter, new Entry(generation, null, count, null));
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized Entry get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.generation != generation.get()) {
+            if (entry != null) entries.remove(key);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    private synchronized void put(Object key, Entry entry) {
+        if (maxEntries <= 0 || entry.generation != generation.get()) return;
+        entries.put(key, entry);
+    }
+
+    public static final class Entry {
+        private final long generation;
+        private final long[] ids;
+        private final long total;
+        private final String nextCursor;
+
+        Entry(long generation, long[] ids, long total, String nextCursor) {
+            this.generation = generation;
+            this.ids = ids;
+            this.total = total;
+            this.nextCursor = nextCursor;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+
+    private static final class PageKey {
+        private final ShipFilter filter;
+        private final ShipOrder order;
+        private final int pageNumber;
+        private final int pageSize;
+        private final String cursor;
+
+        PageKey(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize, String cursor) {
+            this.filter = filter;
+            this.order = order;
+            // a cursor replaces the offset, so the page number must not split the key
+            this.pageNumber = cursor == null ? pageNumber : 0;
+            this.pageSize = pageSize;
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PageKey that = (PageKey) o;
+            return pageNumber == that.pageNumber &&
+                    pageSize == that.pageSize &&
+                    order == that.order &&
+                    filter.equals(that.filter) &&
+                    Objects.equals(cursor, that.cursor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(filter, order, pageNumber, pageSize, cursor);
+        }
+    }
+}
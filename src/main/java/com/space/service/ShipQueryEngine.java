@@ -0,0 +1,528 @@
+package com.space.service;
+
+import com.space.config.ReplicaRoutingDataSource;
+import com.space.controller.ShipOrder;
+import com.space.controller.ShipPage;
+import com.space.controller.ShipView;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipCursor;
+import com.space.repository.ShipFilter;
+import com.space.repository.ShipRepository;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented in-memory copy of the ship table used to answer list and count queries.
+ * Rows are appended, deleted rows are only marked dead and dropped on compaction,
+ * planets are dictionary-encoded so a planet filter is matched once per distinct planet.
+ * Name and planet substring filters of three or more characters are narrowed through trigram indexes.
+ * A put never replaces a newer version of a row, and a removed ship is not put back for the tombstone time-to-live,
+ * so writers finishing out of order leave the copy with what the table has.
+ */
+@Component
+public class ShipQueryEngine implements InitializingBean {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final ShipType[] SHIP_TYPES = ShipType.values();
+
+    private final ShipRepository repository;
+    private final boolean enabled;
+    private final long tombstoneTtlNanos;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdder rowsScanned = new LongAdder();
+    private final LongAdder rowsMatched = new LongAdder();
+
+    private int size;
+    private int dead;
+    private long[] ids;
+    private String[] names;
+    private String[] lowerNames;
+    private int[] planets;
+    private byte[] shipTypes;
+    private long[] prodDates;
+    private BitSet used;
+    private double[] speeds;
+    private int[] crewSizes;
+    private double[] ratings;
+    private long[] versions;
+    private BitSet live;
+    private Map<Long, Integer> rows;
+    // removal time of the ids removed within the tombstone time-to-live, oldest first
+    private LinkedHashMap<Long, Long> removed;
+    private final TrigramIndex nameIndex = new TrigramIndex();
+    private final TrigramIndex planetIndex = new TrigramIndex();
+
+    private List<String> planetDictionary;
+    private List<String> lowerPlanetDictionary;
+    private Map<String, Integer> planetCodes;
+
+    public ShipQueryEngine(ShipRepository repository,
+                           @Value("${ship.query-engine.enabled:true}") boolean enabled,
+                           @Value("${ship.query-engine.tombstone-ttl-seconds:300}") long tombstoneTtlSeconds) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.tombstoneTtlNanos = TimeUnit.SECONDS.toNanos(tombstoneTtlSeconds);
+        clear(INITIAL_CAPACITY);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return rows tested against a filter since start, all live rows or the trigram candidates of a name filter
+     */
+    public long getRowsScanned() {
+        return rowsScanned.sum();
+    }
+
+    public long getRowsMatched() {
+        return rowsMatched.sum();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    public void reload() {
+        if (!enabled) return;
+
+        // puts only follow the reload, so a lagging replica's copy would stay until the next one
+        List<Ship> ships = ReplicaRoutingDataSource.onPrimary(() -> repository.findAll(Sort.by(ShipOrder.ID.getFieldName())));
+        lock.writeLock().lock();
+        try {
+            clear(Math.max(INITIAL_CAPACITY, ships.size()));
+            for (Ship ship : ships) {
+                append(ship);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Ship ship) {
+        if (!enabled) return;
+
+        lock.writeLock().lock();
+        try {
+            expireTombstones(System.nanoTime());
+            if (removed.containsKey(ship.getId())) return;
+            Integer row = rows.get(ship.getId());
+            if (row == null) {
+                append(ship);
+            } else if (versions[row] <= versionOf(ship)) {
+                write(row, ship);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (!enabled) return;
+
+        lock.writeLock().lock();
+        try {
+            long now = System.nanoTime();
+            expireTombstones(now);
+            removed.remove(id);
+            removed.put(id, now);
+            Integer row = rows.remove(id);
+            if (row == null) return;
+            live.clear(row);
+            nameIndex.remove(row, lowerNames[row]);
+            names[row] = null;
+            lowerNames[row] = null;
+            if (++dead > size / 4) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // tombstones are kept in removal order, so the expired ones are at the head
+    private void expireTombstones(long now) {
+        Iterator<Long> removedAt = removed.values().iterator();
+        while (removedAt.hasNext() && now - removedAt.next() - tombstoneTtlNanos >= 0) {
+            removedAt.remove();
+        }
+    }
+
+    /**
+     * Offset page when cursor is null, otherwise the first pageSize matches sorting after the cursor.
+     */
+    public ShipPage find(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize, ShipCursor cursor) {
+        if (order == null) order = ShipOrder.ID;
+
+        lock.readLock().lock();
+        try {
+            int[] matches = new int[size - dead];
+            int total = match(filter, matches);
+            long[] keys = sort(matches, total, order);
+
+            int from = cursor == null
+                    ? (int) Math.min((long) pageNumber * pageSize, total)
+                    : seek(matches, keys, total, cursor);
+            int to = Math.min(from + pageSize, total);
+            List<ShipView> content = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                content.add(view(matches[i]));
+            }
+            String nextCursor = to > from && to < total ? new ShipCursor(order, keys[to - 1], ids[matches[to - 1]]).encode() : null;
+            return new ShipPage(content, total, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // first position whose (key, id) sorts after the cursor
+    private int seek(int[] sorted, long[] keys, int length, ShipCursor cursor) {
+        int low = 0, high = length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int result = Long.compare(keys[middle], cursor.getKey());
+            if (result == 0) result = Long.compare(ids[sorted[middle]], cursor.getId());
+            if (result <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public List<ShipView> get(long[] shipIds) {
+        lock.readLock().lock();
+        try {
+            List<ShipView> result = new ArrayList<>(shipIds.length);
+            for (long id : shipIds) {
+                Integer row = rows.get(id);
+                if (row != null) result.add(view(row));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(ShipFilter filter) {
+        lock.readLock().lock();
+        try {
+            return match(filter, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int match(ShipFilter filter, int[] matches) {
+        RowMatcher matcher = new RowMatcher(filter);
+        int[] candidates = matcher.name == null ? null : nameIndex.search(matcher.name);
+
+        int count = 0;
+        rowsScanned.add(candidates == null ? size - dead : candidates.length);
+        if (candidates == null) {
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                if (!matcher.test(row)) continue;
+                if (matches != null) matches[count] = row;
+                count++;
+            }
+        } else {
+            for (int row : candidates) {
+                if (!matcher.test(row)) continue;
+                if (matches != null) matches[count] = row;
+                count++;
+            }
+        }
+        rowsMatched.add(count);
+        return count;
+    }
+
+    private boolean[] matchPlanets(String planet) {
+        boolean[] result = new boolean[lowerPlanetDictionary.size()];
+        int[] candidates = planetIndex.search(planet);
+        if (candidates == null) {
+            for (int code = 0; code < result.length; code++) {
+                result[code] = lowerPlanetDictionary.get(code).contains(planet);
+            }
+        } else {
+            for (int code : candidates) {
+                result[code] = lowerPlanetDictionary.get(code).contains(planet);
+            }
+        }
+        return result;
+    }
+
+    private final class RowMatcher {
+        private final String name;
+        private final boolean[] planetMatches;
+        private final int shipType;
+        private final long after;
+        private final long before;
+        private final Boolean isUsed;
+        private final boolean bySpeed;
+        private final double minSpeed;
+        private final double maxSpeed;
+        private final int minCrewSize;
+        private final int maxCrewSize;
+        private final boolean byRating;
+        private final double minRating;
+        private final double maxRating;
+
+        RowMatcher(ShipFilter filter) {
+            name = filter.getName() == null ? null : TrigramIndex.normalize(filter.getName());
+            planetMatches = filter.getPlanet() == null ? null : matchPlanets(TrigramIndex.normalize(filter.getPlanet()));
+            shipType = filter.getShipType() == null ? -1 : filter.getShipType().ordinal();
+            after = filter.getAfter() == null ? Long.MIN_VALUE : filter.getAfter();
+            before = filter.getBefore() == null ? Long.MAX_VALUE : filter.getBefore();
+            isUsed = filter.getUsed();
+            bySpeed = filter.getMinSpeed() != null || filter.getMaxSpeed() != null;
+            minSpeed = filter.getMinSpeed() == null ? Double.NEGATIVE_INFINITY : filter.getMinSpeed();
+            maxSpeed = filter.getMaxSpeed() == null ? Double.POSITIVE_INFINITY : filter.getMaxSpeed();
+            minCrewSize = filter.getMinCrewSize() == null ? Integer.MIN_VALUE : filter.getMinCrewSize();
+            maxCrewSize = filter.getMaxCrewSize() == null ? Integer.MAX_VALUE : filter.getMaxCrewSize();
+            byRating = filter.getMinRating() != null || filter.getMaxRating() != null;
+            minRating = filter.getMinRating() == null ? Double.NEGATIVE_INFINITY : filter.getMinRating();
+            maxRating = filter.getMaxRating() == null ? Double.POSITIVE_INFINITY : filter.getMaxRating();
+        }
+
+        boolean test(int row) {
+            if (shipType >= 0 && shipTypes[row] != shipType) return false;
+            if (isUsed != null && used.get(row) != isUsed) return false;
+            if (prodDates[row] < after || prodDates[row] > before) return false;
+            if (bySpeed && !(speeds[row] >= minSpeed && speeds[row] <= maxSpeed)) return false;
+            if (crewSizes[row] < minCrewSize || crewSizes[row] > maxCrewSize) return false;
+            if (byRating && !(ratings[row] >= minRating && ratings[row] <= maxRating)) return false;
+            if (planetMatches != null && !planetMatches[planets[row]]) return false;
+            return name == null || lowerNames[row].contains(name);
+        }
+    }
+
+    private long[] sort(int[] matches, int length, ShipOrder order) {
+        long[] keys;
+        switch (order) {
+            case SPEED:
+                keys = doubleKeys(speeds, matches, length);
+                break;
+            case DATE:
+                keys = longKeys(prodDates, matches, length);
+                break;
+            case RATING:
+                keys = doubleKeys(ratings, matches, length);
+                break;
+            default:
+                keys = longKeys(ids, matches, length);
+        }
+        mergeSort(matches, keys, length);
+        return keys;
+    }
+
+    private static long[] longKeys(long[] column, int[] matches, int length) {
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = column[matches[i]];
+        }
+        return keys;
+    }
+
+    // the stored values are non-negative, so their IEEE bit patterns sort like the values
+    private static long[] doubleKeys(double[] column, int[] matches, int length) {
+        long[] keys = new long[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = Double.doubleToLongBits(column[matches[i]]);
+        }
+        return keys;
+    }
+
+    /**
+     * Stable merge sort of rows by key. Rows come in from the scan in append order,
+     * so ties keep the id order of the SQL "ORDER BY key, id".
+     */
+    private void mergeSort(int[] rowsToSort, long[] keys, int length) {
+        if (isSorted(rowsToSort, keys, length)) return;
+
+        int[] rowBuffer = new int[length];
+        long[] keyBuffer = new long[length];
+        for (int width = 1; width < length; width *= 2) {
+            for (int from = 0; from < length; from += 2 * width) {
+                int middle = Math.min(from + width, length);
+                int to = Math.min(from + 2 * width, length);
+                int left = from, right = middle, target = from;
+                while (left < middle && right < to) {
+                    if (compare(keys[right], rowsToSort[right], keys[left], rowsToSort[left]) < 0) {
+                        keyBuffer[target] = keys[right];
+                        rowBuffer[target++] = rowsToSort[right++];
+                    } else {
+                        keyBuffer[target] = keys[left];
+                        rowBuffer[target++] = rowsToSort[left++];
+                    }
+                }
+                while (left < middle) {
+                    keyBuffer[target] = keys[left];
+                    rowBuffer[target++] = rowsToSort[left++];
+                }
+                while (right < to) {
+                    keyBuffer[target] = keys[right];
+                    rowBuffer[target++] = rowsToSort[right++];
+                }
+            }
+            System.arraycopy(rowBuffer, 0, rowsToSort, 0, length);
+            System.arraycopy(keyBuffer, 0, keys, 0, length);
+        }
+    }
+
+    private boolean isSorted(int[] rowsToSort, long[] keys, int length) {
+        for (int i = 1; i < length; i++) {
+            if (compare(keys[i], rowsToSort[i], keys[i - 1], rowsToSort[i - 1]) < 0) return false;
+        }
+        return true;
+    }
+
+    private int compare(long key1, int row1, long key2, int row2) {
+        int result = Long.compare(key1, key2);
+        return result != 0 ? result : Long.compare(ids[row1], ids[row2]);
+    }
+
+    private ShipView view(int row) {
+        return new ShipView(ids[row], names[row], planetDictionary.get(planets[row]),
+                shipTypes[row] < 0 ? null : SHIP_TYPES[shipTypes[row]], new Date(prodDates[row]),
+                used.get(row), speeds[row], crewSizes[row], ratings[row]);
+    }
+
+    private void append(Ship ship) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        rows.put(ship.getId(), row);
+        live.set(row);
+        write(row, ship);
+    }
+
+    private void write(int row, Ship ship) {
+        ids[row] = ship.getId();
+        String lowerName = TrigramIndex.normalize(ship.getName());
+        if (!lowerName.equals(lowerNames[row])) {
+            if (lowerNames[row] != null) nameIndex.remove(row, lowerNames[row]);
+            nameIndex.add(row, lowerName);
+        }
+        names[row] = ship.getName();
+        lowerNames[row] = lowerName;
+        planets[row] = planetCode(ship.getPlanet());
+        shipTypes[row] = ship.getShipType() == null ? -1 : (byte) ship.getShipType().ordinal();
+        prodDates[row] = ship.getProdDate() == null ? Long.MIN_VALUE : startOfDay(ship.getProdDate());
+        used.set(row, Boolean.TRUE.equals(ship.getUsed()));
+        speeds[row] = ship.getSpeed() == null ? Double.NaN : ship.getSpeed();
+        crewSizes[row] = ship.getCrewSize() == null ? Integer.MIN_VALUE : ship.getCrewSize();
+        ratings[row] = ship.getRating() == null ? Double.NaN : ship.getRating();
+        versions[row] = versionOf(ship);
+    }
+
+    private static long versionOf(Ship ship) {
+        return ship.getVersion() == null ? 0 : ship.getVersion();
+    }
+
+    // prodDate is a DATE column, so a freshly saved ship still carries the time of day it was sent with
+    private static long startOfDay(Date date) {
+        ZoneId zone = ZoneId.systemDefault();
+        return Instant.ofEpochMilli(date.getTime()).atZone(zone).toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private int planetCode(String planet) {
+        if (planet == null) planet = "";
+        Integer code = planetCodes.get(planet);
+        if (code == null) {
+            code = planetDictionary.size();
+            planetDictionary.add(planet);
+            lowerPlanetDictionary.add(TrigramIndex.normalize(planet));
+            planetCodes.put(planet, code);
+            planetIndex.add(code, TrigramIndex.normalize(planet));
+        }
+        return code;
+    }
+
+    // row numbers shift, so the name index is rebuilt from the surviving rows
+    private void compact() {
+        nameIndex.clear();
+        int target = 0;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1), target++) {
+            if (row == target) continue;
+            ids[target] = ids[row];
+            names[target] = names[row];
+            lowerNames[target] = lowerNames[row];
+            planets[target] = planets[row];
+            shipTypes[target] = shipTypes[row];
+            prodDates[target] = prodDates[row];
+            used.set(target, used.get(row));
+            speeds[target] = speeds[row];
+            crewSizes[target] = crewSizes[row];
+            ratings[target] = ratings[row];
+            versions[target] = versions[row];
+            rows.put(ids[target], target);
+        }
+        for (int row = 0; row < target; row++) {
+            nameIndex.add(row, lowerNames[row]);
+        }
+        Arrays.fill(names, target, size, null);
+        Arrays.fill(lowerNames, target, size, null);
+        used.clear(target, size);
+        live.clear();
+        live.set(0, target);
+        size = target;
+        dead = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) return;
+
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        lowerNames = Arrays.copyOf(lowerNames, newCapacity);
+        planets = Arrays.copyOf(planets, newCapacity);
+        shipTypes = Arrays.copyOf(shipTypes, newCapacity);
+        prodDates = Arrays.copyOf(prodDates, newCapacity);
+        speeds = Arrays.copyOf(speeds, newCapacity);
+        crewSizes = Arrays.copyOf(crewSizes, newCapacity);
+        ratings = Arrays.copyOf(ratings, newCapacity);
+        versions = Arrays.copyOf(versions, newCapacity);
+    }
+
+    private void clear(int capacity) {
+        size = 0;
+        dead = 0;
+        ids = new long[capacity];
+        names = new String[capacity];
+        lowerNames = new String[capacity];
+        planets = new int[capacity];
+        shipTypes = new byte[capacity];
+        prodDates = new long[capacity];
+        used = new BitSet(capacity);
+        speeds = new double[capacity];
+        crewSizes = new int[capacity];
+        ratings = new double[capacity];
+        versions = new long[capacity];
+        live = new BitSet(capacity);
+        rows = new HashMap<>();
+        removed = new LinkedHashMap<>();
+        nameIndex.clear();
+        planetIndex.clear();
+        planetDictionary = new ArrayList<>();
+        lowerPlanetDictionary = new ArrayList<>();
+        planetCodes = new HashMap<>();
+    }
+}
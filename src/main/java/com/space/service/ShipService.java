@@ -1,88 +1,326 @@
 package com.space.service;
 
+import com.space.config.ReplicaRoutingDataSource;
+import com.space.controller.ShipBulkResult;
+import com.space.controller.ShipExportFormat;
 import com.space.controller.ShipOrder;
+import com.space.controller.ShipPage;
+import com.space.controller.ShipRequest;
+import com.space.controller.ShipView;
 import com.space.exceptions.BadRequestException;
+import com.space.exceptions.ConflictException;
 import com.space.exceptions.NotFoundException;
+import com.space.exceptions.PreconditionFailedException;
 import com.space.model.Ship;
 import com.space.model.ShipType;
+import com.space.repository.ShipBatchWriter;
+import com.space.repository.ShipCursor;
+import com.space.repository.ShipFilter;
 import com.space.repository.ShipRepository;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import com.space.repository.ShipSpecification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-
-import java.util.Calendar;
-import java.util.Comparator;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class ShipService {
     private final ShipRepository repository;
-
-    public ShipService(ShipRepository repository) {
+    private final ShipQueryEngine queryEngine;
+    private final ShipCache shipCache;
+    private final ShipQueryCache queryCache;
+    private final ShipBatchWriter batchWriter;
+    private final RatingEngine ratingEngine;
+    private final IndexAdvisor indexAdvisor;
+    private final int updateAttempts;
+
+    public ShipService(ShipRepository repository, ShipQueryEngine queryEngine, ShipCache shipCache, ShipQueryCache queryCache,
+                       ShipBatchWriter batchWriter, RatingEngine ratingEngine, IndexAdvisor indexAdvisor,
+                       @Value("${ship.update.max-attempts:3}") int updateAttempts) {
         this.repository = repository;
+        this.updateAttempts = updateAttempts;
+        this.indexAdvisor = indexAdvisor;
+        this.batchWriter = batchWriter;
+        this.ratingEngine = ratingEngine;
+        this.queryEngine = queryEngine;
+        this.shipCache = shipCache;
+        this.queryCache = queryCache;
     }
 
-    public List<Ship> getShipsList(String name, String planet,
-                                   ShipType shipType, Long after, Long before,
-                                   Boolean isUsed,
-                                   Double minSpeed, Double maxSpeed,
-                                   Integer minCrewSize, Integer maxCrewSize,
-                                   Double minRating, Double maxRating,
-                                   ShipOrder order,
-                                   Integer pageNumber, Integer pageSize) {
+    @Transactional(readOnly = true)
+    public List<ShipView> getShipsList(String name, String planet,
+                                       ShipType shipType, Long after, Long before,
+                                       Boolean isUsed,
+                                       Double minSpeed, Double maxSpeed,
+                                       Integer minCrewSize, Integer maxCrewSize,
+                                       Double minRating, Double maxRating,
+                                       ShipOrder order,
+                                       Integer pageNumber, Integer pageSize,
+                                       String cursor) {
         if (pageNumber ==null) pageNumber = 0;
         if (pageSize == null) pageSize = 3;
+        if (order == null) order = ShipOrder.ID;
+        if (cursor != null && cursor.isEmpty()) cursor = null;
+
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        long started = System.nanoTime();
+        List<ShipView> content = findShipsList(filter, order, pageNumber, pageSize, cursor);
+        indexAdvisor.record(filter, order, System.nanoTime() - started, content.size());
+        return content;
+    }
 
-        String myOrder = ShipOrder.ID.getFieldName();
-        if (order != null){
-            myOrder = order.getFieldName();
+    private List<ShipView> findShipsList(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize, String cursor) {
+        ShipQueryCache.Entry cached = queryCache.getPage(filter, order, pageNumber, pageSize, cursor);
+        if (cached != null) return loadInOrder(cached.getIds());
+
+        long generation = queryCache.generation();
+        ShipCursor shipCursor = cursorOf(cursor, order);
+        if (queryEngine.isEnabled()) {
+            ShipPage page = queryEngine.find(filter, order, pageNumber, pageSize, shipCursor);
+            queryCache.putPage(filter, order, pageNumber, pageSize, cursor, idsOf(page.getContent()), page.getTotal(), page.getNextCursor(), generation);
+            return page.getContent();
         }
-        PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, Sort.by(myOrder));
 
-        return repository.findParameters(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating,maxRating, pageRequest).getContent();
+        long replicaReads = ReplicaRoutingDataSource.replicaReads();
+        List<ShipView> content = repository.findViews(filter, order, shipCursor, (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE), pageSize);
+        if (ReplicaRoutingDataSource.replicaReads() == replicaReads) {
+            queryCache.putPage(filter, order, pageNumber, pageSize, cursor, idsOf(content), ShipQueryCache.UNKNOWN_TOTAL, null, generation);
+        }
+        return content;
     }
 
+    @Transactional(readOnly = true)
+    public ShipPage getShipsPage(String name, String planet,
+                                 ShipType shipType, Long after, Long before,
+                                 Boolean isUsed,
+                                 Double minSpeed, Double maxSpeed,
+                                 Integer minCrewSize, Integer maxCrewSize,
+                                 Double minRating, Double maxRating,
+                                 ShipOrder order,
+                                 Integer pageNumber, Integer pageSize,
+                                 String cursor) {
+        if (pageNumber ==null) pageNumber = 0;
+        if (pageSize == null) pageSize = 3;
+        if (order == null) order = ShipOrder.ID;
+        if (cursor != null && cursor.isEmpty()) cursor = null;
+
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        long started = System.nanoTime();
+        ShipPage page = findShipsPage(filter, order, pageNumber, pageSize, cursor);
+        indexAdvisor.record(filter, order, System.nanoTime() - started, page.getContent().size());
+        return page;
+    }
+
+    private ShipPage findShipsPage(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize, String cursor) {
+        ShipQueryCache.Entry cached = queryCache.getPage(filter, order, pageNumber, pageSize, cursor);
+        if (cached != null && cached.getTotal() != ShipQueryCache.UNKNOWN_TOTAL) {
+            return new ShipPage(loadInOrder(cached.getIds()), cached.getTotal(), cached.getNextCursor());
+        }
+
+        long generation = queryCache.generation();
+        long replicaReads = ReplicaRoutingDataSource.replicaReads();
+        ShipPage page = findPage(filter, order, pageNumber, pageSize, cursorOf(cursor, order));
+        if (ReplicaRoutingDataSource.replicaReads() == replicaReads) {
+            queryCache.putPage(filter, order, pageNumber, pageSize, cursor, idsOf(page.getContent()), page.getTotal(), page.getNextCursor(), generation);
+        }
+        return page;
+    }
+
+    /**
+     * Writes every ship of the filter as it is read from the database cursor, memory use does not depend on the result size.
+     */
+    @Transactional(readOnly = true)
+    public void exportShips(String name, String planet,
+                            ShipType shipType, Long after, Long before,
+                            Boolean isUsed,
+                            Double minSpeed, Double maxSpeed,
+                            Integer minCrewSize, Integer maxCrewSize,
+                            Double minRating, Double maxRating,
+                            ShipOrder order, ShipExportFormat format, OutputStream out) throws IOException {
+        if (order == null) order = ShipOrder.ID;
+        if (format == null) format = ShipExportFormat.NDJSON;
+
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        format.writeHeader(writer);
+        try (Stream<Ship> ships = repository.streamFiltered(filter, order)) {
+            Iterator<Ship> iterator = ships.iterator();
+            while (iterator.hasNext()) {
+                format.write(iterator.next(), writer);
+            }
+        }
+        writer.flush();
+    }
+
+    private ShipPage findPage(ShipFilter filter, ShipOrder order, int pageNumber, int pageSize, ShipCursor shipCursor) {
+        if (queryEngine.isEnabled()) {
+            return queryEngine.find(filter, order, pageNumber, pageSize, shipCursor);
+        }
+        if (shipCursor != null) {
+            List<ShipView> content = repository.findViews(filter, order, shipCursor, 0, pageSize);
+            long total = repository.count(ShipSpecification.of(filter));
+            String nextCursor = content.size() == pageSize && pageSize > 0
+                    ? ShipCursor.after(order, content.get(content.size() - 1)).encode() : null;
+            return new ShipPage(content, total, nextCursor);
+        }
 
+        // one filtered scan over ids only; the page itself is fetched by primary key
+        List<Long> ids = repository.findIds(filter, order);
+
+        int from = (int) Math.min((long) pageNumber * pageSize, ids.size());
+        int to = Math.min(from + pageSize, ids.size());
+        List<ShipView> content = loadInOrder(ids.subList(from, to).stream().mapToLong(Long::longValue).toArray());
+
+        String nextCursor = to > from && to < ids.size() ? ShipCursor.after(order, content.get(content.size() - 1)).encode() : null;
+        return new ShipPage(content, ids.size(), nextCursor);
+    }
+
+    @Transactional(readOnly = true)
     public Integer getShipsCount(String name, String planet,
                                  ShipType shipType, Long after, Long before,
                                  Boolean isUsed,
                                  Double minSpeed, Double maxSpeed,
                                  Integer minCrewSize, Integer maxCrewSize,
                                  Double minRating, Double maxRating) {
-        return 0;
+        ShipFilter filter = new ShipFilter(name, planet, shipType, after, before, isUsed, minSpeed, maxSpeed, minCrewSize, maxCrewSize, minRating, maxRating);
+        ShipQueryCache.Entry cached = queryCache.getCount(filter);
+        if (cached != null) return Math.toIntExact(cached.getTotal());
+
+        long generation = queryCache.generation();
+        long replicaReads = ReplicaRoutingDataSource.replicaReads();
+        long count;
+        if (queryEngine.isEnabled()) {
+            count = queryEngine.count(filter);
+        } else {
+            count = repository.count(ShipSpecification.of(filter));
+        }
+        if (ReplicaRoutingDataSource.replicaReads() == replicaReads) queryCache.putCount(filter, count, generation);
+        return Math.toIntExact(count);
+    }
+
+    private List<ShipView> loadInOrder(long[] ids) {
+        if (queryEngine.isEnabled()) return queryEngine.get(ids);
+
+        List<Long> boxedIds = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxedIds.add(id);
+        }
+        Map<Long, ShipView> ships = new HashMap<>();
+        for (ShipView ship : repository.findViewsByIdIn(boxedIds)) {
+            ships.put(ship.getId(), ship);
+        }
+        List<ShipView> content = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            ShipView ship = ships.get(id);
+            if (ship != null) content.add(ship);
+        }
+        return content;
+    }
+
+    private static long[] idsOf(List<ShipView> ships) {
+        long[] ids = new long[ships.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = ships.get(i).getId();
+        }
+        return ids;
+    }
+
+    /**
+     * @return a number that changes with every write that could change a list page or count, it only describes
+     * what was read from the primary
+     */
+    public long getFleetGeneration() {
+        return queryCache.generation();
+    }
+
+    /**
+     * Re-reads everything kept in memory after the ship table was changed behind the service's back.
+     */
+    public void reload() {
+        shipCache.clear();
+        queryCache.invalidate();
+        queryEngine.reload();
+    }
+
+    private ShipCursor cursorOf(String cursor, ShipOrder order) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        return ShipCursor.decode(cursor, order);
     }
 
     public void deleteShip(Long id) {
         checkID(id);
-        repository.deleteById(id);
+        if (repository.deleteShipById(id) == 0)
+            throw new NotFoundException();
+        shipCache.evict(id);
+        queryEngine.remove(id);
+        queryCache.invalidate();
     }
 
     private void checkID(Long id) {
         if (id == null || id <= 0)
             throw new BadRequestException();
-
-        if (!hasShip(id))
-            throw new NotFoundException();
-    }
-
-    private boolean hasShip(Long id) {
-        return repository.existsById(id);
     }
 
+    @Transactional(readOnly = true)
     public Ship getShipById(Long id) {
         checkID(id);
-        return repository.findById(id).orElseThrow(IllegalStateException::new);
+
+        Ship ship = shipCache.get(id);
+        if (ship == null) {
+            long replicaReads = ReplicaRoutingDataSource.replicaReads();
+            ship = repository.findById(id).orElseThrow(NotFoundException::new);
+            // a replica may not have this process's latest write of the ship yet
+            if (ReplicaRoutingDataSource.replicaReads() == replicaReads) shipCache.put(ship);
+        }
+        return ship;
     }
 
-    public Ship updateShip(Long id, String name, String planet, ShipType shipType, Long prodDate, Boolean isUsed, Double speed, Integer crewSize) {
+    /**
+     * Applies the given fields to the ship without locking its row: the write only succeeds if the row still has
+     * the version that was read. With an expectedVersion the caller's precondition decides, any other version
+     * fails with 412. Without one the fields are re-applied to a fresh read, merging them with concurrent writes
+     * of other fields, until updateAttempts writes have lost the race and 409 is returned.
+     */
+    public Ship updateShip(Long id, Long expectedVersion, String name, String planet, ShipType shipType, Long prodDate, Boolean isUsed, Double speed, Integer crewSize) {
         checkID(id);
 
-        Ship ship = repository.findById(id).orElseThrow(IllegalStateException::new);
-
+        for (int attempt = 1; ; attempt++) {
+            // always a fresh copy: the cached instance must not see a half-applied update that fails validation
+            Ship ship = repository.findById(id).orElseThrow(NotFoundException::new);
+            if (expectedVersion != null && !expectedVersion.equals(ship.getVersion())) throw new PreconditionFailedException();
+            applyUpdate(ship, name, planet, shipType, prodDate, isUsed, speed, crewSize);
+
+            try {
+                Ship saved = repository.save(ship);
+                written(saved);
+                queryCache.invalidate();
+                return saved;
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null) throw new PreconditionFailedException();
+                if (attempt >= updateAttempts) throw new ConflictException();
+            }
+        }
+    }
 
+    private void applyUpdate(Ship ship, String name, String planet, ShipType shipType, Long prodDate, Boolean isUsed, Double speed, Integer crewSize) {
         if (name != null) {
             checkStringValue(name);
             ship.setName(name);
@@ -108,19 +346,18 @@ public class ShipService {
             checkCrewSize(crewSize);
             ship.setCrewSize(crewSize);
         }
-
-        return repository.save(ship);
     }
 
+    public Ship createShip(String name, String planet, ShipType shipType, Long prodDate, Boolean isUsed, Double speed, Integer crewSize) {
+        Ship ship = newShip(name, planet, shipType, prodDate, isUsed, speed, crewSize);
 
-    private int checkDate(Long date) {
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTimeInMillis(date);
-        return calendar.get(Calendar.YEAR);
+        Ship saved = repository.save(ship);
+        written(saved);
+        queryCache.invalidate();
+        return saved;
     }
 
-    public Ship createShip(String name, String planet, ShipType shipType, Long prodDate, Boolean isUsed, Double speed, Integer crewSize) {
-
+    private Ship newShip(String name, String planet, ShipType shipType, Long prodDate, Boolean isUsed, Double speed, Integer crewSize) {
         checkStringValue(name);
         checkStringValue(planet);
         checkProdDate(prodDate);
@@ -140,8 +377,163 @@ public class ShipService {
         ship.setCrewSize(crewSize);
         double rating = ratingCalc(speed, isUsed, ship.getProdDate());
         ship.setRating(rating);
+        return ship;
+    }
+
+    public List<ShipBulkResult> createShips(List<ShipRequest> requests) {
+        Ship[] built = new Ship[requests.size()];
+        List<Ship> ships = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ShipRequest request = requests.get(i);
+            try {
+                built[i] = newShip(request.getName(), request.getPlanet(), request.getShipType(), request.getProdDate(),
+                        request.getUsed(), request.getSpeed(), request.getCrewSize());
+                ships.add(built[i]);
+            } catch (BadRequestException e) {
+                built[i] = null;
+            }
+        }
+
+        batchWriter.insert(ships);
+        for (Ship ship : ships) {
+            written(ship);
+        }
+        queryCache.invalidate();
+
+        List<ShipBulkResult> results = new ArrayList<>(built.length);
+        for (int i = 0; i < built.length; i++) {
+            results.add(built[i] == null ? ShipBulkResult.failed(i, null, HttpStatus.BAD_REQUEST) : ShipBulkResult.ok(i, built[i].getId(), built[i]));
+        }
+        return results;
+    }
+
+    public List<ShipBulkResult> updateShips(List<ShipRequest> requests) {
+        List<Long> ids = new ArrayList<>(requests.size());
+        for (ShipRequest request : requests) {
+            if (request.getId() != null) ids.add(request.getId());
+        }
+        Map<Long, Ship> existing = new HashMap<>();
+        for (Ship ship : repository.findAllById(ids)) {
+            existing.put(ship.getId(), ship);
+        }
+
+        List<ShipBulkResult> results = new ArrayList<>(requests.size());
+        Map<Long, Ship> ships = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ShipRequest request = requests.get(i);
+            Long id = request.getId();
+            if (id == null || id <= 0) {
+                results.add(ShipBulkResult.failed(i, id, HttpStatus.BAD_REQUEST));
+                continue;
+            }
+            Ship ship = ships.containsKey(id) ? ships.get(id) : existing.get(id);
+            if (ship == null) {
+                results.add(ShipBulkResult.failed(i, id, HttpStatus.NOT_FOUND));
+                continue;
+            }
+            Ship copy = copyOf(ship);
+            try {
+                applyUpdate(copy, request.getName(), request.getPlanet(), request.getShipType(), request.getProdDate(),
+                        request.getUsed(), request.getSpeed(), request.getCrewSize());
+                ships.put(id, copy);
+                results.add(ShipBulkResult.ok(i, id, copy));
+            } catch (BadRequestException e) {
+                results.add(ShipBulkResult.failed(i, id, HttpStatus.BAD_REQUEST));
+            }
+        }
+
+        List<Ship> updates = new ArrayList<>(ships.values());
+        int[] updated = batchWriter.update(updates);
+        Set<Long> conflicts = new HashSet<>();
+        for (int i = 0; i < updates.size(); i++) {
+            if (updated[i] == 0) {
+                conflicts.add(updates.get(i).getId());
+            } else {
+                written(updates.get(i));
+            }
+        }
+        // a row written since it was read above is a conflict, like a single update whose If-Match no longer holds,
+        // a deleted one is not found; the engine and the cache get what the database now has
+        Set<Long> gone = new HashSet<>(conflicts);
+        if (!conflicts.isEmpty()) {
+            for (Ship current : repository.findAllById(conflicts)) {
+                gone.remove(current.getId());
+                written(current);
+            }
+            for (Long id : gone) {
+                shipCache.evict(id);
+                queryEngine.remove(id);
+            }
+        }
+        for (int i = 0; i < results.size(); i++) {
+            ShipBulkResult result = results.get(i);
+            if (result.getShip() != null && conflicts.contains(result.getId())) {
+                HttpStatus status = gone.contains(result.getId()) ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT;
+                results.set(i, ShipBulkResult.failed(i, result.getId(), status));
+            }
+        }
+        queryCache.invalidate();
+        return results;
+    }
+
+    public List<ShipBulkResult> deleteShips(List<Long> ids) {
+        List<ShipBulkResult> results = new ArrayList<>(ids.size());
+        List<Long> valid = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null && id > 0) valid.add(id);
+        }
+
+        int[] deleted = batchWriter.delete(valid);
+        int next = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            if (id == null || id <= 0) {
+                results.add(ShipBulkResult.failed(i, id, HttpStatus.BAD_REQUEST));
+            } else if (deleted[next++] == 0) {
+                results.add(ShipBulkResult.failed(i, id, HttpStatus.NOT_FOUND));
+            } else {
+                shipCache.evict(id);
+                queryEngine.remove(id);
+                results.add(ShipBulkResult.ok(i, id, null));
+            }
+        }
+        queryCache.invalidate();
+        return results;
+    }
+
+    /**
+     * Refreshes the caches and the query engine after ships were rewritten outside of this service.
+     */
+    public void reloadShips(long[] ids, int length) {
+        List<Long> changed = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            changed.add(ids[i]);
+        }
+        // the caches keep what they are given, so a replica behind the rewrite must not answer
+        for (Ship ship : ReplicaRoutingDataSource.onPrimary(() -> repository.findAllById(changed))) {
+            written(ship);
+        }
+        queryCache.invalidate();
+    }
 
-        return repository.save(ship);
+    private static Ship copyOf(Ship ship) {
+        Ship copy = new Ship();
+        copy.setId(ship.getId());
+        copy.setName(ship.getName());
+        copy.setPlanet(ship.getPlanet());
+        copy.setShipType(ship.getShipType());
+        copy.setProdDate(ship.getProdDate());
+        copy.setUsed(ship.getUsed());
+        copy.setSpeed(ship.getSpeed());
+        copy.setCrewSize(ship.getCrewSize());
+        copy.setRating(ship.getRating());
+        copy.setVersion(ship.getVersion());
+        return copy;
+    }
+
+    private void written(Ship ship) {
+        shipCache.put(ship);
+        queryEngine.put(ship);
     }
 
     private void checkCrewSize(Integer crewSize) {
@@ -156,7 +548,7 @@ public class ShipService {
     }
 
     private void checkProdDate(Long prodDate) {
-        if (prodDate == null || checkDate(prodDate) < 2800 || checkDate(prodDate) > 3019)
+        if (prodDate == null || !ratingEngine.isValidProdDate(prodDate))
             throw new BadRequestException();
     }
 
@@ -166,17 +558,8 @@ public class ShipService {
         if (value.isEmpty()) throw new BadRequestException();
     }
 
-    public Double ratingCalc(Double speed, Boolean isUsed, Date date) {
-
-        double k = isUsed ? 0.5d : 1d;
-
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(date);
-        double y1 = calendar.get(Calendar.YEAR);
-
-        double result = (80 * speed * k) / (3019 - y1 + 1);
-        double scale = Math.pow(10, 2);
-        return Math.round(result * scale) / scale;
+    public double ratingCalc(double speed, boolean isUsed, Date date) {
+        return ratingEngine.rating(speed, isUsed, date.getTime());
     }
 
 }
@@ -0,0 +1,130 @@
+package com.space.service;
+
+import com.space.config.ReplicaRoutingDataSource;
+import com.space.exceptions.ServiceUnavailableException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded executor for the repository work of the async endpoints. At most poolSize tasks run at once,
+ * which should not exceed the connection pool, and at most queueCapacity more wait; anything beyond
+ * is rejected with 503 instead of piling up. On a JDK with virtual threads every task gets its own
+ * virtual thread and the bound is kept by a semaphore, otherwise a fixed pool of platform threads is used.
+ */
+@Component
+public class ShipTaskExecutor implements DisposableBean {
+    private final int poolSize;
+    private final int queueCapacity;
+    private final ExecutorService executor;
+    private final boolean virtual;
+
+    // virtual threads only: admission covers running and waiting tasks, running the ones past the queue
+    private final Semaphore admitted;
+    private final Semaphore running;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public ShipTaskExecutor(@Value("${ship.async.pool-size:10}") int poolSize,
+                            @Value("${ship.async.queue-capacity:1000}") int queueCapacity,
+                            @Value("${ship.async.virtual-threads:true}") boolean virtualThreads) {
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+        ExecutorService virtualExecutor = virtualThreads ? newVirtualThreadPerTaskExecutor() : null;
+        this.virtual = virtualExecutor != null;
+        if (virtual) {
+            this.executor = virtualExecutor;
+            this.admitted = new Semaphore(poolSize + queueCapacity);
+            this.running = new Semaphore(poolSize);
+        } else {
+            AtomicInteger threads = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "ship-task-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.admitted = null;
+            this.running = null;
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (virtual && !admitted.tryAcquire()) return rejected();
+        // a client that has just written keeps reading from the primary on the executor thread too
+        boolean pinned = ReplicaRoutingDataSource.isPinnedToPrimary();
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> run(task, pinned), executor);
+            submitted.increment();
+            return future;
+        } catch (RejectedExecutionException e) {
+            if (virtual) admitted.release();
+            return rejected();
+        }
+    }
+
+    private <T> T run(Supplier<T> task, boolean pinned) {
+        if (virtual) running.acquireUninterruptibly();
+        active.incrementAndGet();
+        ReplicaRoutingDataSource.setPinnedToPrimary(pinned);
+        try {
+            return task.get();
+        } finally {
+            ReplicaRoutingDataSource.setPinnedToPrimary(false);
+            active.decrementAndGet();
+            if (virtual) {
+                running.release();
+                admitted.release();
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> rejected() {
+        rejected.increment();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new ServiceUnavailableException());
+        return future;
+    }
+
+    public Map<String, Long> metrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("virtualThreads", virtual ? 1L : 0L);
+        metrics.put("poolSize", (long) poolSize);
+        metrics.put("queueCapacity", (long) queueCapacity);
+        metrics.put("active", (long) active.get());
+        metrics.put("queued", virtual ? (long) running.getQueueLength() : ((ThreadPoolExecutor) executor).getQueue().size());
+        metrics.put("submitted", submitted.sum());
+        metrics.put("rejected", rejected.sum());
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    // Executors.newVirtualThreadPerTaskExecutor() is looked up reflectively so the code still builds for Java 8
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Class.forName("java.util.concurrent.Executors")
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
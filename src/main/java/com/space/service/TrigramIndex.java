@@ -0,0 +1,121 @@
+package com.space.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from character trigrams to sorted lists of row numbers.
+ * A substring search intersects the posting lists of the needle's trigrams, the caller
+ * still has to check the candidates because sharing all trigrams does not imply containment.
+ */
+class TrigramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    void add(int row, String normalized) {
+        for (long gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(row);
+        }
+    }
+
+    void remove(int row, String normalized) {
+        for (long gram : grams(normalized)) {
+            Postings list = postings.get(gram);
+            if (list == null) continue;
+            list.remove(row);
+            if (list.size == 0) postings.remove(gram);
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * @return sorted candidate rows, or null when the needle is shorter than a trigram and cannot be looked up
+     */
+    int[] search(String normalizedNeedle) {
+        if (normalizedNeedle.length() < GRAM_LENGTH) return null;
+
+        Set<Long> grams = grams(normalizedNeedle);
+        Postings[] lists = new Postings[grams.size()];
+        int i = 0;
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) return new int[0];
+            lists[i++] = list;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+        int[] result = Arrays.copyOf(lists[0].rows, lists[0].size);
+        int length = result.length;
+        for (int l = 1; l < lists.length && length > 0; l++) {
+            length = intersect(result, length, lists[l]);
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    // keeps in result only the rows also present in list, returns the new length
+    private static int intersect(int[] result, int length, Postings list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < length && from < list.size; i++) {
+            int position = Arrays.binarySearch(list.rows, from, list.size, result[i]);
+            if (position >= 0) {
+                result[kept++] = result[i];
+                from = position + 1;
+            } else {
+                from = -position - 1;
+            }
+        }
+        return kept;
+    }
+
+    private static Set<Long> grams(String normalized) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(((long) normalized.charAt(i) << 32) | ((long) normalized.charAt(i + 1) << 16) | normalized.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private static final class Postings {
+        private int[] rows = new int[4];
+        private int size;
+
+        void add(int row) {
+            if (size > 0 && rows[size - 1] < row) {
+                append(row);
+                return;
+            }
+            int position = Arrays.binarySearch(rows, 0, size, row);
+            if (position >= 0) return;
+            position = -position - 1;
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+            rows[position] = row;
+            size++;
+        }
+
+        private void append(int row) {
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+
+        void remove(int row) {
+            int position = Arrays.binarySearch(rows, 0, size, row);
+            if (position < 0) return;
+            System.arraycopy(rows, position + 1, rows, position, size - position - 1);
+            size--;
+        }
+    }
+}
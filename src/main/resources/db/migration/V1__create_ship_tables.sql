@@ -0,0 +1,25 @@
+-- only what is missing, so it also completes a database created by an older init.sql
+CREATE TABLE IF NOT EXISTS ship
+(
+    id       BIGINT(20)  NOT NULL AUTO_INCREMENT,
+    name     VARCHAR(50) NULL,
+    planet   VARCHAR(50) NULL,
+    shipType VARCHAR(9)  NULL,
+    prodDate date        NULL,
+    isUsed   BIT(1)      NULL,
+    speed    DOUBLE      NULL,
+    crewSize INT(4)      NULL,
+    rating   DOUBLE      NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX ship_speed_id ON ship (speed, id);
+CREATE INDEX ship_prod_date_id ON ship (prodDate, id);
+CREATE INDEX ship_rating_id ON ship (rating, id);
+
+CREATE TABLE IF NOT EXISTS job_checkpoint
+(
+    name   VARCHAR(50) NOT NULL,
+    lastId BIGINT(20)  NOT NULL,
+    PRIMARY KEY (name)
+);
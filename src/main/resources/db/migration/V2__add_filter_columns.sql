@@ -0,0 +1,7 @@
+-- columns appended at the end and secondary indexes are built without locking the table in InnoDB; the lowercase
+-- copies of name and planet are computed by the database, virtual columns are added without a table copy
+ALTER TABLE ship ADD COLUMN nameLower VARCHAR(50) AS (LOWER(name));
+ALTER TABLE ship ADD COLUMN planetLower VARCHAR(50) AS (LOWER(planet));
+
+CREATE INDEX ship_crew_size_id ON ship (crewSize, id);
+CREATE INDEX ship_type_used_date ON ship (shipType, isUsed, prodDate);
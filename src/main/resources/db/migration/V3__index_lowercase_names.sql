@@ -0,0 +1,2 @@
+CREATE INDEX ship_name_lower ON ship (nameLower);
+CREATE INDEX ship_planet_lower ON ship (planetLower);
@@ -0,0 +1,2 @@
+-- optimistic lock version, bumped by every write of the row
+ALTER TABLE ship ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
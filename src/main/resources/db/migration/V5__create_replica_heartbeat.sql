@@ -0,0 +1,9 @@
+-- written on the primary and read back from each replica to measure its lag
+CREATE TABLE replica_heartbeat
+(
+    id     INT    NOT NULL,
+    beatAt BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replica_heartbeat(id, beatAt) VALUES (1, 0);
@@ -2,7 +2,10 @@ package com.space.controller;
 
 import com.space.config.AppConfig;
 import com.space.config.MyWebAppInit;
+import com.space.config.SqlStatementLog;
 import com.space.config.WebConfig;
+import com.space.service.ShipService;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +19,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
 @RunWith(SpringJUnit4ClassRunner.class)
 @ActiveProfiles("dev")
 @ContextConfiguration(classes = {AppConfig.class, MyWebAppInit.class, WebConfig.class})
@@ -33,6 +40,15 @@ public abstract class AbstractTest {
 
     @Before
     public void setup() {
+        // test.sql has just recreated the ship table underneath the service
+        context.getBean(ShipService.class).reload();
         mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        context.getBean(SqlStatementLog.class).drainViolations();
+    }
+
+    @After
+    public void checkStatementBudget() {
+        List<String> violations = context.getBean(SqlStatementLog.class).drainViolations();
+        assertTrue("Превышен бюджет SQL-запросов на запрос: " + violations, violations.isEmpty());
     }
 }
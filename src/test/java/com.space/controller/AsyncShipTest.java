@@ -0,0 +1,104 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class AsyncShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void asyncListMatchesSyncList() throws Exception {
+        String content = async(get("/rest/async/ships?pageSize=40&order=RATING"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<ShipInfoTest> actual = mapper.readValue(content, new TypeReference<List<ShipInfoTest>>() {
+        });
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 40, testsHelper.getShipInfosByOrder(ShipOrder.RATING, testsHelper.getAllShips()));
+        assertEquals("GET /rest/async/ships возвращает неверный результат.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void asyncErrorsKeepStatus() throws Exception {
+        async(get("/rest/async/ships/4100")).andExpect(status().isNotFound());
+        async(post("/rest/async/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.EMPTY_NAME_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test3
+    @Test
+    public void executorCountsSubmittedTasks() throws Exception {
+        Map<String, Long> before = metrics();
+        async(get("/rest/async/ships/count")).andExpect(status().isOk());
+
+        Map<String, Long> after = metrics();
+        assertEquals("Задача не учтена в метриках исполнителя.", before.get("submitted") + 1, after.get("submitted"));
+        assertEquals("Задача отклонена исполнителем.", before.get("rejected"), after.get("rejected"));
+    }
+
+    //test4
+    @Test
+    public void asyncEndpointsAnswerConditionalRequests() throws Exception {
+        String etag = async(get("/rest/async/ships/5")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("Асинхронный ответ должен совпадать по ETag с синхронным.", etag,
+                mockMvc.perform(get("/rest/ships/5")).andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+        async(get("/rest/async/ships/5").header(HttpHeaders.IF_NONE_MATCH, etag)).andExpect(status().isNotModified());
+
+        String updated = async(post("/rest/async/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content("{\"name\":\"Excalibur II\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue("Обновление не вернуло новый ETag.", updated != null && !updated.equals(etag));
+        async(post("/rest/async/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content("{\"name\":\"Excalibur III\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        String fleet = async(get("/rest/async/ships/count")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        async(get("/rest/async/ships/count").header(HttpHeaders.IF_NONE_MATCH, fleet)).andExpect(status().isNotModified());
+    }
+
+    private ResultActions async(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder.accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private Map<String, Long> metrics() throws Exception {
+        String content = mockMvc.perform(get("/rest/metrics/executor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, new TypeReference<Map<String, Long>>() {
+        });
+    }
+}
@@ -0,0 +1,208 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipBulkResultInfoTest;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.config.IdGenerator;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import com.space.repository.ShipBatchWriter;
+import com.space.repository.ShipRepository;
+import com.space.service.IndexAdvisor;
+import com.space.service.RatingEngine;
+import com.space.service.ShipCache;
+import com.space.service.ShipQueryCache;
+import com.space.service.ShipQueryEngine;
+import com.space.service.ShipService;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipBulkResultInfoTest>> typeReference = new TypeReference<List<ShipBulkResultInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void createShipsInsertsValidAndReportsInvalid() throws Exception {
+        List<ShipBulkResultInfoTest> results = bulk("/rest/ships/bulk",
+                "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.EMPTY_NAME_JSON + "," + TestsHelper.NORMAL_JSON + "]");
+
+        assertEquals("Неверное количество результатов POST /rest/ships/bulk.", 3, results.size());
+        assertEquals("Корректный корабль не создан.", 200, results.get(0).status);
+        assertEquals("Корабль с пустым именем создан.", 400, results.get(1).status);
+        assertEquals("Корректный корабль не создан.", 200, results.get(2).status);
+        assertTrue("Созданный корабль получил неверный id.", results.get(0).id > 40);
+        assertTrue("Id созданных кораблей не возрастают.", results.get(2).id > results.get(0).id);
+        assertEquals("Созданному кораблю неверно посчитан рейтинг.", 12.8, results.get(0).ship.rating);
+
+        ShipInfoTest stored = ship(results.get(2).id);
+        assertEquals("Созданный корабль не сохранен.", "123456789", stored.name);
+        assertEquals("Созданные корабли не учитываются в GET /rest/ships/count.",
+                testsHelper.getAllShips().size() + 2, count());
+    }
+
+    //test2
+    @Test
+    public void updateShipsUpdatesFoundAndReportsMissing() throws Exception {
+        List<ShipBulkResultInfoTest> results = bulk("/rest/ships/bulk/update",
+                "[" + String.format(TestsHelper.NORMAL_JSON_WITH_ID, 1) + ","
+                        + String.format(TestsHelper.NORMAL_JSON_WITH_ID, 4100) + ","
+                        + "{\"id\": 2, \"speed\": 5}" + ","
+                        + "{\"name\": \"Nameless\"}]");
+
+        assertEquals("Существующий корабль не обновлен.", 200, results.get(0).status);
+        assertEquals("Несуществующий корабль не вернул 404.", 404, results.get(1).status);
+        assertEquals("Корабль с неверной скоростью обновлен.", 400, results.get(2).status);
+        assertEquals("Корабль без id обновлен.", 400, results.get(3).status);
+
+        assertEquals("Обновленный корабль не сохранен.", "123456789", ship(1L).name);
+        assertEquals("Корабль с неверной скоростью изменен.", 0.94, ship(2L).speed);
+    }
+
+    //test3
+    @Test
+    public void deleteShipsDeletesFoundAndReportsMissing() throws Exception {
+        List<ShipBulkResultInfoTest> results = bulk("/rest/ships/bulk/delete", "[1, 4100, 0, 2]");
+
+        assertEquals("Существующий корабль не удален.", 200, results.get(0).status);
+        assertEquals("Несуществующий корабль не вернул 404.", 404, results.get(1).status);
+        assertEquals("Неверный id не вернул 400.", 400, results.get(2).status);
+        assertEquals("Существующий корабль не удален.", 200, results.get(3).status);
+
+        mockMvc.perform(get("/rest/ships/1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+        assertEquals("Удаленные корабли учитываются в GET /rest/ships/count.",
+                testsHelper.getAllShips().size() - 2, count());
+    }
+
+    //test4
+    @Test
+    public void batchUpdateSkipsRowsWrittenOrDeletedSinceTheRead() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        List<Ship> ships = context.getBean(ShipRepository.class).findAllById(Arrays.asList(1L, 2L, 3L));
+        ships.sort(Comparator.comparing(Ship::getId));
+        for (Ship ship : ships) {
+            ship.setName("Batch");
+        }
+        jdbcTemplate.update("UPDATE ship SET name = 'Concurrent', version = version + 1 WHERE id = 1");
+        jdbcTemplate.update("DELETE FROM ship WHERE id = 3");
+
+        int[] updated = context.getBean(ShipBatchWriter.class).update(ships);
+        assertEquals("Неверные счетчики обновления.", "[0, 1, 0]", Arrays.toString(updated));
+        assertEquals("Параллельное изменение перезаписано.", "Concurrent",
+                jdbcTemplate.queryForObject("SELECT name FROM ship WHERE id = 1", String.class));
+        assertEquals("Версия не увеличена.", 1L, ships.get(1).getVersion());
+    }
+
+    //test5
+    @Test
+    public void rowsLostToConcurrentWritersAreReportedAndNotCached() throws Exception {
+        DataSource dataSource = context.getBean(DataSource.class);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // another instance deletes one ship and updates another between the read and the batch
+        ShipBatchWriter racing = new ShipBatchWriter(dataSource, context.getBean(IdGenerator.class), 500) {
+            @Override
+            public int[] update(List<Ship> ships) {
+                jdbcTemplate.update("DELETE FROM ship WHERE id = 1");
+                jdbcTemplate.update("UPDATE ship SET name = 'Concurrent', version = version + 1 WHERE id = 2");
+                return super.update(ships);
+            }
+        };
+        ShipService service = new ShipService(context.getBean(ShipRepository.class), context.getBean(ShipQueryEngine.class),
+                context.getBean(ShipCache.class), context.getBean(ShipQueryCache.class), racing,
+                context.getBean(RatingEngine.class), context.getBean(IndexAdvisor.class), 3);
+
+        List<ShipBulkResult> results = service.updateShips(Arrays.asList(rename(1L), rename(2L), rename(3L)));
+        assertEquals("Удаленный корабль не вернул 404.", 404, results.get(0).getStatus());
+        assertEquals("Измененный корабль не вернул 409.", 409, results.get(1).getStatus());
+        assertEquals("Корабль не обновлен.", 200, results.get(2).getStatus());
+
+        assertEquals("Удаленный корабль учитывается в GET /rest/ships/count.", testsHelper.getAllShips().size() - 1, count());
+        assertEquals("Параллельное изменение не видно.", "Concurrent", ship(2L).name);
+        assertEquals("Обновление не видно.", "Renamed", ship(3L).name);
+    }
+
+    //test6
+    @Test
+    public void batchInsertDrawsIdsBatchByBatch() {
+        DataSource dataSource = context.getBean(DataSource.class);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long[] drawn = new long[1];
+        IdGenerator ids = () -> {
+            int inserted = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship", Integer.class) - testsHelper.getAllShips().size();
+            assertTrue("Id выданы раньше своего пакета.", drawn[0] - inserted < 2);
+            return 10_000 + drawn[0]++;
+        };
+        List<Ship> ships = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Ship ship = new Ship();
+            ship.setName("Batch " + i);
+            ship.setPlanet("Mars");
+            ship.setShipType(ShipType.MERCHANT);
+            ship.setProdDate(new Date(32_000_000_000_000L));
+            ship.setUsed(false);
+            ship.setSpeed(0.5);
+            ship.setCrewSize(10);
+            ship.setRating(1.0);
+            ships.add(ship);
+        }
+
+        new ShipBatchWriter(dataSource, ids, 2).insert(ships);
+        assertEquals("Неверное количество выданных id.", 5L, drawn[0]);
+        assertEquals("Корабль сохранен не с выданным id.", "Batch 4",
+                jdbcTemplate.queryForObject("SELECT name FROM ship WHERE id = 10004", String.class));
+    }
+
+    private static ShipRequest rename(Long id) {
+        ShipRequest request = new ShipRequest();
+        request.setId(id);
+        request.setName("Renamed");
+        return request;
+    }
+
+    private List<ShipBulkResultInfoTest> bulk(String url, String content) throws Exception {
+        String response = mockMvc.perform(post(url)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(content))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(response, typeReference);
+    }
+
+    private ShipInfoTest ship(Long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, ShipInfoTest.class);
+    }
+
+    private int count() throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(content);
+    }
+}
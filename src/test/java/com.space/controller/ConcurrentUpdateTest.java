@@ -0,0 +1,89 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+public class ConcurrentUpdateTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void updateWithCurrentETagSucceedsOnce() throws Exception {
+        String etag = mockMvc.perform(get("/rest/ships/5").accept(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult first = update(etag, "{\"name\":\"Excalibur II\"}");
+        assertEquals("Обновление с актуальным ETag должно проходить.", 200, first.getResponse().getStatus());
+        String next = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue("Ответ на обновление должен содержать новый ETag.", next != null && !next.equals(etag));
+
+        assertEquals("Обновление с устаревшим ETag должно возвращать 412.", 412,
+                update(etag, "{\"name\":\"Excalibur III\"}").getResponse().getStatus());
+        assertEquals("Обновление с ETag другого корабля должно возвращать 412.", 412,
+                update("\"6-0\"", "{\"name\":\"Excalibur III\"}").getResponse().getStatus());
+        assertEquals("Обновление с новым ETag должно проходить.", 200,
+                update(next, "{\"name\":\"Excalibur III\"}").getResponse().getStatus());
+    }
+
+    //test2
+    @Test
+    public void concurrentUpdatesOfDifferentFieldsAreNotLost() throws Exception {
+        String[] bodies = {"{\"name\":\"Merged\"}", "{\"planet\":\"Pluto\"}", "{\"speed\":0.5}", "{\"crewSize\":42}"};
+        ExecutorService executor = Executors.newFixedThreadPool(bodies.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+        for (String body : bodies) {
+            statuses.add(executor.submit(() -> {
+                start.await();
+                return update(null, body).getResponse().getStatus();
+            }));
+        }
+        start.countDown();
+
+        ShipInfoTest expected = new ShipInfoTest();
+        for (int i = 0; i < bodies.length; i++) {
+            int status = statuses.get(i).get();
+            assertTrue("Обновление должно проходить или возвращать 409.", status == 200 || status == 409);
+            if (status == 200) {
+                if (i == 0) expected.name = "Merged";
+                if (i == 1) expected.planet = "Pluto";
+                if (i == 2) expected.speed = 0.5;
+                if (i == 3) expected.crewSize = 42;
+            }
+        }
+        executor.shutdown();
+
+        String content = mockMvc.perform(get("/rest/ships/5").accept(MediaType.APPLICATION_JSON_UTF8))
+                .andReturn().getResponse().getContentAsString();
+        ShipInfoTest actual = mapper.readValue(content, ShipInfoTest.class);
+        if (expected.name != null) assertEquals("Потеряно обновление имени.", expected.name, actual.name);
+        if (expected.planet != null) assertEquals("Потеряно обновление планеты.", expected.planet, actual.planet);
+        if (expected.speed != null) assertEquals("Потеряно обновление скорости.", expected.speed, actual.speed);
+        if (expected.crewSize != null) assertEquals("Потеряно обновление экипажа.", expected.crewSize, actual.crewSize);
+    }
+
+    private MvcResult update(String ifMatch, String body) throws Exception {
+        if (ifMatch == null) {
+            return mockMvc.perform(post("/rest/ships/5").contentType(MediaType.APPLICATION_JSON_UTF8).content(body)).andReturn();
+        }
+        return mockMvc.perform(post("/rest/ships/5").contentType(MediaType.APPLICATION_JSON_UTF8).content(body)
+                .header(HttpHeaders.IF_MATCH, ifMatch)).andReturn();
+    }
+}
@@ -0,0 +1,76 @@
+package com.space.controller;
+
+import com.space.service.ShipQueryCache;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalGetTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void unchangedShipIsNotModified() throws Exception {
+        String etag = getShip(null).getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue("Ответ не содержит ETag.", etag != null && etag.startsWith("\""));
+
+        MvcResult notModified = getShip(etag);
+        assertEquals("Неизмененный корабль должен возвращать 304.", 304, notModified.getResponse().getStatus());
+        assertEquals("Ответ 304 не должен содержать тело.", "", notModified.getResponse().getContentAsString());
+
+        mockMvc.perform(post("/rest/ships/5")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Excalibur II\"}"))
+                .andExpect(status().isOk());
+
+        MvcResult modified = getShip(etag);
+        assertEquals("Измененный корабль должен возвращаться заново.", 200, modified.getResponse().getStatus());
+        assertTrue("ETag не изменился после обновления.", !etag.equals(modified.getResponse().getHeader(HttpHeaders.ETAG)));
+    }
+
+    //test2
+    @Test
+    public void listIsNotModifiedUntilFleetChanges() throws Exception {
+        String etag = getList(null).getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("Неизмененный список должен возвращать 304.", 304, getList(etag).getResponse().getStatus());
+
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\":\"Nova\",\"planet\":\"Earth\",\"shipType\":\"MERCHANT\",\"prodDate\":33103209600000,\"speed\":0.5,\"crewSize\":10}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Список должен возвращаться заново после записи.", 200, getList(etag).getResponse().getStatus());
+    }
+
+    //test3
+    @Test
+    public void notModifiedListRunsNoQuery() throws Exception {
+        String etag = getList(null).getResponse().getHeader(HttpHeaders.ETAG);
+        ShipQueryCache queryCache = context.getBean(ShipQueryCache.class);
+        long lookups = queryCache.getHits() + queryCache.getMisses();
+
+        assertEquals("Неизмененный список должен возвращать 304.", 304, getList(etag).getResponse().getStatus());
+        assertEquals("Ответ 304 выполнил запрос списка.", lookups, queryCache.getHits() + queryCache.getMisses());
+    }
+
+    private MvcResult getShip(String ifNoneMatch) throws Exception {
+        return perform("/rest/ships/5", ifNoneMatch);
+    }
+
+    private MvcResult getList(String ifNoneMatch) throws Exception {
+        return perform("/rest/ships?shipType=MILITARY&pageSize=5", ifNoneMatch);
+    }
+
+    private MvcResult perform(String url, String ifNoneMatch) throws Exception {
+        if (ifNoneMatch == null) {
+            return mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8)).andReturn();
+        }
+        return mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8).header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch)).andReturn();
+    }
+}
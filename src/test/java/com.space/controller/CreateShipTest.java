@@ -10,6 +10,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.ResultActions;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -21,7 +22,7 @@ public class CreateShipTest extends AbstractTest {
     @Before
     public void setup() {
         super.setup();
-        expected = new ShipInfoTest(41L, "123456789", "Earth", ShipType.MILITARY, 32998274577071L, true, 0.8, 14, 6.4);
+        expected = new ShipInfoTest(null, "123456789", "Earth", ShipType.MILITARY, 32998274577071L, true, 0.8, 14, 6.4);
     }
 
     //test1
@@ -98,6 +99,7 @@ public class CreateShipTest extends AbstractTest {
 
         String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
         ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
+        checkNewId(actual);
         assertEquals("Возвращается не правильный результат при запросе создания корабля без параметра isUsed.", expected, actual);
     }
 
@@ -112,6 +114,7 @@ public class CreateShipTest extends AbstractTest {
 
         String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
         ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
+        checkNewId(actual);
         assertEquals("Возвращается не правильный результат при запросе создания корабля с параметром isUsed.", expected, actual);
     }
 
@@ -129,6 +132,13 @@ public class CreateShipTest extends AbstractTest {
 
         String contentAsString = resultActions.andReturn().getResponse().getContentAsString();
         ShipInfoTest actual = mapper.readValue(contentAsString, ShipInfoTest.class);
+        checkNewId(actual);
         assertEquals("Возвращается не правильный результат при запросе создания корабля с параметром isUsed.", expected, actual);
     }
-}
\ No newline at end of file
+
+    // ids come from the id generator, so a created ship only has to get an id none of the stored ships has
+    private void checkNewId(ShipInfoTest actual) {
+        assertTrue("Созданный корабль получил неверный id.", actual.id != null && actual.id > 40);
+        expected.id = actual.id;
+    }
+}
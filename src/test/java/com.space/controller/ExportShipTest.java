@@ -0,0 +1,104 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ExportShipTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void exportNdjsonReturnsWholeFleet() throws Exception {
+        List<ShipInfoTest> actual = new ArrayList<>();
+        for (String line : export("")) {
+            actual.add(mapper.readValue(line, ShipInfoTest.class));
+        }
+
+        assertEquals("GET /rest/ships/export возвращает неверный результат.", testsHelper.getAllShips(), actual);
+    }
+
+    //test2
+    @Test
+    public void exportCsvWithFilterAndOrder() throws Exception {
+        List<String> lines = export("?format=CSV&planet=ars&order=SPEED");
+
+        List<ShipInfoTest> expected = testsHelper.getAllShips().stream()
+                .filter(ship -> ship.planet.contains("ars"))
+                .sorted((a, b) -> a.speed.equals(b.speed) ? a.id.compareTo(b.id) : a.speed.compareTo(b.speed))
+                .collect(Collectors.toList());
+
+        assertEquals("CSV выгрузка не содержит заголовок.", "id,name,planet,shipType,prodDate,isUsed,speed,crewSize,rating", lines.get(0));
+        assertEquals("CSV выгрузка содержит неверное количество строк.", expected.size() + 1, lines.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("CSV выгрузка возвращает корабли в неверном порядке.", String.valueOf(expected.get(i).id), lines.get(i + 1).split(",")[0]);
+        }
+    }
+
+    //test3
+    @Test
+    public void exportIsRejectedWhenTheExecutorIsFull() throws Exception {
+        ThreadPoolTaskExecutor executor = context.getBean("mvcAsyncExecutor", ThreadPoolTaskExecutor.class);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(executor.getMaxPoolSize());
+        Runnable blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            // every thread busy first, then the queue full
+            for (int i = 0; i < executor.getMaxPoolSize(); i++) {
+                tasks.add(executor.submit(blocking));
+            }
+            started.await();
+            for (int i = executor.getThreadPoolExecutor().getQueue().remainingCapacity(); i > 0; i--) {
+                tasks.add(executor.submit(blocking));
+            }
+            mockMvc.perform(get("/rest/ships/export"))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            release.countDown();
+            // the queue has room again only once the blocking tasks are done
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+        assertEquals("Выгрузка не работает после освобождения пула.", testsHelper.getAllShips().size(), export("").size());
+    }
+
+    private List<String> export(String query) throws Exception {
+        MvcResult result = mockMvc.perform(get("/rest/ships/export" + query))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String content = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<String> lines = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            if (!line.isEmpty()) lines.add(line);
+        }
+        return lines;
+    }
+}
@@ -2,11 +2,15 @@ package com.space.controller;
 
 import com.space.controller.utils.TestsHelper;
 import com.space.model.ShipType;
+import com.space.repository.ShipFilter;
+import com.space.repository.ShipRepository;
+import com.space.repository.ShipSpecification;
 import org.junit.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -152,4 +156,24 @@ public class GetCountTest extends AbstractTest {
 
         assertSame("Во звращается не правильный результат при запросе GET /rest/ships/count с параметрами isUsed, minSpeed и maxSpeed.", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test9
+    @Test
+    public void specificationCountMatchesEveryFilterCombination() throws Exception {
+        ShipRepository repository = context.getBean(ShipRepository.class);
+
+        long actual = repository.count(ShipSpecification.of(new ShipFilter(null, null, ShipType.MILITARY, null, null, false,
+                0.1, null, 100, 4000, null, 5.0)));
+        int expected = testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                testsHelper.getShipInfosByIsUsed(false,
+                        testsHelper.getShipInfosByMinSpeed(0.1,
+                                testsHelper.getShipInfosByMinCrewSize(100,
+                                        testsHelper.getShipInfosByMaxCrewSize(4000,
+                                                testsHelper.getShipInfosByMaxRating(5.0,
+                                                        testsHelper.getAllShips())))))).size();
+        assertEquals("Запрос по спецификации возвращает неверное количество кораблей.", expected, actual);
+
+        long all = repository.count(ShipSpecification.of(new ShipFilter(null, null, null, null, null, null, null, null, null, null, null, null)));
+        assertEquals("Пустой фильтр должен находить все корабли.", testsHelper.getAllShips().size(), all);
+    }
+}
@@ -0,0 +1,174 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.ShipPageInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.ShipType;
+import com.space.repository.ShipCursor;
+import com.space.repository.ShipFilter;
+import com.space.repository.ShipRepository;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPageTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPageWithoutFiltersReturnFirstPageAndTotal() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships/page")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        ShipPageInfoTest actual = mapper.readValue(result.getResponse().getContentAsString(), ShipPageInfoTest.class);
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(0, 3, testsHelper.getAllShips());
+        assertEquals("Возвращается не правильный список кораблей при запросе GET /rest/ships/page.", expected, actual.content);
+        assertEquals("Возвращается не правильное количество кораблей при запросе GET /rest/ships/page.",
+                (long) testsHelper.getAllShips().size(), actual.total);
+    }
+
+    //test2
+    @Test
+    public void getPageWithFiltersPlanetOrderRatingPageNumber() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships/page?planet=ars&order=RATING&pageNumber=1&pageSize=2")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        ShipPageInfoTest actual = mapper.readValue(result.getResponse().getContentAsString(), ShipPageInfoTest.class);
+
+        List<ShipInfoTest> filtered = testsHelper.getShipInfosByOrder(ShipOrder.RATING,
+                testsHelper.getShipInfosByPlanet("ars", testsHelper.getAllShips()));
+        assertEquals("Возвращается не правильный список кораблей при запросе GET /rest/ships/page с параметрами planet, order и pageNumber.",
+                testsHelper.getShipInfosByPage(1, 2, filtered), actual.content);
+        assertEquals("Возвращается не правильное количество кораблей при запросе GET /rest/ships/page с параметрами planet, order и pageNumber.",
+                (long) filtered.size(), actual.total);
+    }
+
+    //test3
+    @Test
+    public void getPageWithFiltersShipTypeMinSpeedOutOfRange() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships/page?shipType=MILITARY&minSpeed=0.5&pageNumber=100")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        ShipPageInfoTest actual = mapper.readValue(result.getResponse().getContentAsString(), ShipPageInfoTest.class);
+
+        int expectedTotal = testsHelper.getShipInfosByShipType(ShipType.MILITARY,
+                testsHelper.getShipInfosByMinSpeed(0.5, testsHelper.getAllShips())).size();
+        assertEquals("Страница за пределами результата должна быть пустой.", 0, actual.content.size());
+        assertEquals("Возвращается не правильное количество кораблей при запросе GET /rest/ships/page с параметрами shipType и minSpeed.",
+                (long) expectedTotal, actual.total);
+    }
+
+    //test4
+    @Test
+    public void getPageWithFiltersLongNameAndPlanet() throws Exception {
+        ResultActions resultActions = mockMvc.perform(get("/rest/ships/page?name=ion&planet=ars&pageSize=10")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        MvcResult result = resultActions.andReturn();
+        ShipPageInfoTest actual = mapper.readValue(result.getResponse().getContentAsString(), ShipPageInfoTest.class);
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByName("ion",
+                testsHelper.getShipInfosByPlanet("ars", testsHelper.getAllShips()));
+        assertEquals("Возвращается не правильный список кораблей при запросе GET /rest/ships/page с параметрами name и planet.", expected, actual.content);
+        assertEquals("Возвращается не правильное количество кораблей при запросе GET /rest/ships/page с параметрами name и planet.",
+                (long) expected.size(), actual.total);
+    }
+
+    //test5
+    @Test
+    public void getPageWithCursorWalksWholeOrder() throws Exception {
+        List<ShipInfoTest> actual = new ArrayList<>();
+        String cursor = "";
+        do {
+            MvcResult result = mockMvc.perform(get("/rest/ships/page?order=SPEED&pageSize=7&cursor=" + cursor)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            ShipPageInfoTest page = mapper.readValue(result.getResponse().getContentAsString(), ShipPageInfoTest.class);
+            actual.addAll(page.content);
+            cursor = page.nextCursor;
+        } while (cursor != null);
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.SPEED, testsHelper.getAllShips());
+        assertEquals("Постраничный обход GET /rest/ships/page с параметром cursor возвращает не все корабли.", expected, actual);
+    }
+
+    //test6
+    @Test
+    public void getPageWithCursorOfAnotherOrder() throws Exception {
+        String cursor = new ShipCursor(ShipOrder.SPEED, Double.doubleToLongBits(0.5), 3).encode();
+
+        mockMvc.perform(get("/rest/ships/page?order=RATING&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test7
+    @Test
+    public void findViewsAfterCursorMatchesCursorPage() throws Exception {
+        String cursor = new ShipCursor(ShipOrder.DATE, 32503680000000L, 0).encode();
+        MvcResult result = mockMvc.perform(get("/rest/ships/page?order=DATE&shipType=MILITARY&pageSize=4&cursor=" + cursor)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn();
+        ShipPageInfoTest page = mapper.readValue(result.getResponse().getContentAsString(), ShipPageInfoTest.class);
+
+        List<ShipView> views = context.getBean(ShipRepository.class).findViews(
+                new ShipFilter(null, null, ShipType.MILITARY, null, null, null, null, null, null, null, null, null),
+                ShipOrder.DATE, ShipCursor.decode(cursor, ShipOrder.DATE), 0, 4);
+        List<Long> expected = new ArrayList<>();
+        for (ShipView view : views) {
+            expected.add(view.getId());
+        }
+        List<Long> actual = new ArrayList<>();
+        for (ShipInfoTest ship : page.content) {
+            actual.add(ship.id);
+        }
+        assertEquals("Страница по курсору из памяти не совпадает со страницей из базы данных.", expected, actual);
+    }
+
+    //test8
+    @Test
+    public void findViewsMatchesListPage() throws Exception {
+        ShipRepository repository = context.getBean(ShipRepository.class);
+        List<ShipView> views = repository.findViews(
+                new ShipFilter(null, null, null, null, null, false, null, null, null, null, null, null),
+                ShipOrder.RATING, null, 3, 5);
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByPage(1, 3,
+                testsHelper.getShipInfosByOrder(ShipOrder.RATING, testsHelper.getShipInfosByIsUsed(false, testsHelper.getAllShips())));
+        List<Long> expectedIds = new ArrayList<>();
+        for (ShipInfoTest ship : expected) {
+            expectedIds.add(ship.id);
+        }
+        List<Long> actualIds = new ArrayList<>();
+        for (ShipView ship : views.subList(0, 3)) {
+            actualIds.add(ship.getId());
+        }
+        assertEquals("Проекция из базы данных возвращает неверную страницу.", expectedIds, actualIds);
+
+        List<ShipView> byId = repository.findViewsByIdIn(actualIds);
+        assertEquals("Проекция по id возвращает неверное количество кораблей.", 3, byId.size());
+        assertEquals("Проекция по id возвращает неверные поля.", views.get(0).getName(),
+                byId.stream().filter(ship -> ship.getId().equals(actualIds.get(0))).findFirst().get().getName());
+    }
+}
@@ -0,0 +1,182 @@
+package com.space.controller;
+
+import com.space.config.IdNodeLease;
+import com.space.config.SchemaMigrator;
+import com.space.config.SnowflakeIdGenerator;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class IdGeneratorTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    //test1
+    @Test
+    public void idsGrowAndKeepTimeAndNode() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, 1000, clock::get);
+
+        long previous = 0;
+        for (int i = 0; i < 1000; i++) {
+            // 1000 ids in 10 ms overflow the sequence of every millisecond
+            if (i % 100 == 0) clock.addAndGet(1);
+            long id = generator.nextId();
+            assertTrue("Id не возрастают.", id > previous);
+            assertTrue("Id не помещается в 53 бита.", id < 1L << 53);
+            assertEquals("Id потерял номер узла.", 5, SnowflakeIdGenerator.nodeId(id));
+            previous = id;
+        }
+        assertTrue("Id отстают от времени.", SnowflakeIdGenerator.timestamp(previous) >= clock.get());
+        assertTrue("Id слишком опережают время.", SnowflakeIdGenerator.timestamp(previous) - clock.get() < 10);
+        assertTrue("Узлы выдают одинаковые id.",
+                new SnowflakeIdGenerator(6, 1000, () -> NOW).nextId() != new SnowflakeIdGenerator(5, 1000, () -> NOW).nextId());
+    }
+
+    //test2
+    @Test
+    public void clockGoingBackKeepsIdsGrowingUntilDriftLimit() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 10, clock::get);
+
+        long before = generator.nextId();
+        clock.set(NOW - 5);
+        assertTrue("Id уменьшился после перевода часов назад.", generator.nextId() > before);
+
+        clock.set(NOW - 100);
+        try {
+            generator.nextId();
+            assertTrue("Id выдан при отставании часов больше допустимого.", false);
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        clock.set(NOW);
+        assertTrue("Id не выдается после возврата часов.", generator.nextId() > before);
+    }
+
+    //test3
+    @Test
+    public void concurrentIdsAreUnique() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, 60_000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                Callable<long[]> task = () -> {
+                    long[] ids = new long[20_000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.nextId();
+                        if (i > 0 && ids[i] <= ids[i - 1]) throw new IllegalStateException("Id не возрастают в потоке.");
+                    }
+                    return ids;
+                };
+                futures.add(executor.submit(task));
+            }
+            Set<Long> unique = new HashSet<>();
+            for (Future<long[]> future : futures) {
+                for (long id : future.get()) {
+                    unique.add(id);
+                }
+            }
+            assertEquals("Параллельно выданы одинаковые id.", 8 * 20_000, unique.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //test4
+    @Test
+    public void idsAreReservedBeforeTheyAreHandedOut() {
+        AtomicLong clock = new AtomicLong(NOW);
+        List<Long> reservations = new ArrayList<>();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 1000, reservations::add, 100, clock::get);
+
+        generator.nextId();
+        clock.addAndGet(50);
+        generator.nextId();
+        assertEquals("Неверные резервирования.", Arrays.asList(NOW + 100), reservations);
+        clock.addAndGet(51);
+        long id = generator.nextId();
+        assertEquals("Неверные резервирования.", Arrays.asList(NOW + 100, NOW + 201), reservations);
+        assertTrue("Id выдан дальше резервирования.", SnowflakeIdGenerator.timestamp(id) <= reservations.get(1));
+
+        SnowflakeIdGenerator failing = new SnowflakeIdGenerator(0, 1000, until -> {
+            throw new IllegalStateException("lost");
+        }, 100, clock::get);
+        try {
+            failing.nextId();
+            assertTrue("Id выдан без резервирования.", false);
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    //test5
+    @Test
+    public void nodeIdsAreLeasedOnceAndRestartsContinueAfterReservations() throws Exception {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new SchemaMigrator(dataSource, 1000, 0).migrate();
+
+        IdNodeLease first = new IdNodeLease(dataSource, -1, 60_000, 1000);
+        IdNodeLease second = new IdNodeLease(dataSource, -1, 60_000, 1000);
+        assertTrue("Узлы получили одинаковый id.", first.getNodeId() != second.getNodeId());
+        try {
+            new IdNodeLease(dataSource, first.getNodeId(), 60_000, 1000);
+            assertTrue("Занятый id узла выдан второй раз.", false);
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // the node stops without releasing its lease, ids reserved ahead of the clock
+        IdNodeLease crashed = new IdNodeLease(dataSource, 7, 1, 1000);
+        long last = new SnowflakeIdGenerator(7, 1000, crashed, 300).nextId();
+        Thread.sleep(5);
+        IdNodeLease restarted = new IdNodeLease(dataSource, 7, 60_000, 1000);
+        long next = new SnowflakeIdGenerator(7, 1000, restarted, 300).nextId();
+        assertTrue("После перезапуска id повторяется.", SnowflakeIdGenerator.timestamp(next) > SnowflakeIdGenerator.timestamp(last) + 200);
+
+        first.close();
+        assertEquals("Освобожденный id узла не выдается.", first.getNodeId(), new IdNodeLease(dataSource, -1, 60_000, 1000).getNodeId());
+    }
+
+    //test6
+    @Test
+    public void reservationOutlivesTheTransactionThatDrewTheIds() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new SchemaMigrator(dataSource, 1000, 0).migrate();
+        IdNodeLease lease = new IdNodeLease(dataSource, 3, 60_000, 1000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, 1000, lease, 300);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            long id = transaction.execute(status -> {
+                long drawn = generator.nextId();
+                status.setRollbackOnly();
+                return drawn;
+            });
+            long highWater = jdbcTemplate.queryForObject("SELECT highWater FROM id_node WHERE nodeId = 3", Long.class);
+            assertTrue("Резерв id откатился вместе с транзакцией.", highWater >= SnowflakeIdGenerator.timestamp(id));
+        } finally {
+            lease.close();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.service.IndexAdvisor;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class IndexAdvisorTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<Map<String, Object>>> typeReference = new TypeReference<List<Map<String, Object>>>() {
+    };
+
+    //test1
+    @Test
+    public void indexedCombinationIsNotReportedAsFullScan() throws Exception {
+        context.getBean(IndexAdvisor.class).reset();
+        list("/rest/ships?shipType=MERCHANT&isUsed=true&order=DATE");
+        list("/rest/ships?shipType=MILITARY&isUsed=false&order=DATE");
+
+        List<Map<String, Object>> report = report();
+        assertEquals("Неверное количество комбинаций фильтров.", 1, report.size());
+        Map<String, Object> advice = report.get(0);
+        assertEquals("Неверный список фильтров.", Arrays.asList("shipType", "isUsed"), advice.get("filters"));
+        assertEquals("Неверное количество запросов.", 2, advice.get("count"));
+        assertEquals("Запрос по индексу помечен как полный просмотр таблицы.", false, advice.get("fullScan"));
+        assertEquals("Для запроса по индексу предложен новый индекс.", null, advice.get("suggestedIndex"));
+        assertTrue("План не использует индекс ship_type_used_date.",
+                advice.get("plan").toString().toUpperCase().contains("SHIP_TYPE_USED_DATE"));
+    }
+
+    //test2
+    @Test
+    public void fullScanIsReportedWithSuggestedIndex() throws Exception {
+        context.getBean(IndexAdvisor.class).reset();
+        list("/rest/ships?name=a");
+
+        List<Map<String, Object>> report = report();
+        assertEquals("Неверное количество комбинаций фильтров.", 1, report.size());
+        Map<String, Object> advice = report.get(0);
+        assertEquals("Полный просмотр таблицы не обнаружен.", true, advice.get("fullScan"));
+        assertTrue("Не предложен индекс.", advice.get("suggestedIndex") != null);
+    }
+
+    private void list(String url) throws Exception {
+        mockMvc.perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    private List<Map<String, Object>> report() throws Exception {
+        String content = mockMvc.perform(get("/rest/metrics/index-advisor")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+}
@@ -0,0 +1,86 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ListAfterWriteTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<List<ShipInfoTest>> typeReference = new TypeReference<List<ShipInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void createdShipIsCountedAndListed() throws Exception {
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("Созданный корабль не учитывается в GET /rest/ships/count.",
+                testsHelper.getAllShips().size() + 1, count(""));
+
+        List<ShipInfoTest> actual = list("?name=123456789");
+        assertEquals("Созданный корабль не возвращается в GET /rest/ships.", 1, actual.size());
+        assertTrue("Созданный корабль не возвращается в GET /rest/ships.", actual.get(0).id > 40);
+    }
+
+    //test2
+    @Test
+    public void updatedShipIsFilteredByNewValues() throws Exception {
+        mockMvc.perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("Старое название корабля все еще находится после POST /rest/ships/{id}.", 0, count("?name=Orion"));
+
+        List<ShipInfoTest> actual = list("?name=123456789&planet=Earth&shipType=MILITARY");
+        assertEquals("Обновленный корабль не находится по новым значениям.", 1, actual.size());
+        assertEquals("Обновленный корабль не находится по новым значениям.", 1L, actual.get(0).id);
+    }
+
+    //test3
+    @Test
+    public void deletedShipIsNotCountedAndListed() throws Exception {
+        mockMvc.perform(delete("/rest/ships/1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        assertEquals("Удаленный корабль учитывается в GET /rest/ships/count.",
+                testsHelper.getAllShips().size() - 1, count(""));
+        assertEquals("Удаленный корабль возвращается в GET /rest/ships.", 2L, list("").get(0).id);
+    }
+
+    private int count(String query) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/count" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(content);
+    }
+
+    private List<ShipInfoTest> list(String query) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+}
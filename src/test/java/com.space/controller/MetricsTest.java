@@ -0,0 +1,71 @@
+package com.space.controller;
+
+import com.space.config.Histogram;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void listRequestIsTimedOnEveryLayer() throws Exception {
+        mockMvc.perform(get("/rest/ships?shipType=MERCHANT&order=SPEED")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        String metrics = prometheus();
+        assertTrue("Нет времени HTTP-запроса.", metrics.contains(
+                "cosmoport_http_request_seconds_count{method=\"GET\",endpoint=\"/rest/ships\",status=\"200\"}"));
+        assertTrue("Нет времени метода сервиса.", metrics.contains(
+                "cosmoport_method_seconds_count{layer=\"service\",class=\"ShipService\",method=\"getShipsList\"}"));
+        assertTrue("Нет времени запроса по комбинации фильтров.", metrics.contains(
+                "cosmoport_ship_query_seconds_count{filters=\"shipType\",order=\"SPEED\"}"));
+        assertTrue("Нет времени сериализации.", metrics.contains("cosmoport_serialization_seconds_count{type=\"List<ShipView>\"}"));
+        assertTrue("Нет статистики Hibernate.", metrics.contains("cosmoport_hibernate_entities_loaded_total "));
+        assertTrue("Нет метрик пула соединений.", metrics.contains("cosmoport_pool{key=\"acquired\"}"));
+    }
+
+    //test2
+    @Test
+    public void repositoryCallsAreLabelledByTheirInterface() throws Exception {
+        mockMvc.perform(get("/rest/ships/count")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        String metrics = prometheus();
+        assertTrue("Нет времени метода репозитория.", metrics.contains("layer=\"repository\",class=\"ShipRepository\""));
+        assertTrue("Нет количества загруженных сущностей.", metrics.contains(
+                "cosmoport_http_request_entities_loaded_count{endpoint=\"/rest/ships/{id}\"}"));
+    }
+
+    //test3
+    @Test
+    public void histogramQuantilesAreWithinBucketPrecision() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals("Неверное количество значений.", 100_000L, histogram.count());
+        assertEquals("Неверный максимум.", 100_000_000L, histogram.quantile(1));
+        for (double quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            double expected = quantile * 100_000_000;
+            double error = Math.abs(histogram.quantile(quantile) - expected) / expected;
+            assertTrue("Квантиль " + quantile + " отличается больше чем на 1/16.", error <= 1d / 16);
+        }
+    }
+
+    private String prometheus() throws Exception {
+        return mockMvc.perform(get("/rest/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class PoolMetricsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<Map<String, Long>> typeReference = new TypeReference<Map<String, Long>>() {
+    };
+
+    //test1
+    @Test
+    public void databaseReadAcquiresPooledConnection() throws Exception {
+        Map<String, Long> before = metrics();
+
+        mockMvc.perform(get("/rest/ships/5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        Map<String, Long> after = metrics();
+        assertTrue("Запрос к базе не берет соединение из пула.", after.get("acquired") > before.get("acquired"));
+        assertEquals("Соединение не возвращено в пул.", 0L, after.get("active"));
+        assertEquals("Неверный размер пула.", 10L, after.get("max"));
+    }
+
+    private Map<String, Long> metrics() throws Exception {
+        String content = mockMvc.perform(get("/rest/metrics/pool")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+}
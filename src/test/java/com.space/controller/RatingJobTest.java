@@ -0,0 +1,75 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.repository.RatingChunk;
+import com.space.repository.RatingJobRepository;
+import com.space.service.RatingRecomputeJob;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class RatingJobTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void recomputeRewritesOnlyStaleRatings() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        RatingRecomputeJob job = context.getBean(RatingRecomputeJob.class);
+        job.recompute();
+
+        jdbcTemplate.update("UPDATE ship SET rating = 99 WHERE id = 1");
+        assertEquals("Перерасчет рейтинга должен переписать только устаревшие строки.", 1L, job.recompute());
+        assertEquals("Рейтинг не пересчитан.", 1.31, getShip(1).rating);
+        assertEquals("После полного прохода контрольная точка должна сбрасываться.", 0L,
+                jdbcTemplate.queryForObject("SELECT lastId FROM job_checkpoint", Long.class));
+    }
+
+    //test2
+    @Test
+    public void recomputeResumesFromCheckpoint() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        RatingRecomputeJob job = context.getBean(RatingRecomputeJob.class);
+        job.recompute();
+
+        jdbcTemplate.update("UPDATE ship SET rating = 99 WHERE id IN (1, 30)");
+        jdbcTemplate.update("UPDATE job_checkpoint SET lastId = 20");
+
+        assertEquals("Перерасчет должен продолжаться с контрольной точки.", 1L, job.recompute());
+        assertEquals("Рейтинг до контрольной точки не должен пересчитываться.", 99.0, getShip(1).rating);
+        assertEquals("Следующий проход должен начинаться сначала.", 1L, job.recompute());
+        assertEquals("Рейтинг не пересчитан.", 1.31, getShip(1).rating);
+    }
+
+    //test3
+    @Test
+    public void ratingOfRowWrittenSinceTheReadIsNotOverwritten() throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        RatingJobRepository repository = context.getBean(RatingJobRepository.class);
+        RatingChunk chunk = new RatingChunk(2);
+        repository.readChunk(0, chunk);
+
+        jdbcTemplate.update("UPDATE ship SET rating = 7.5, version = version + 1 WHERE id = 1");
+        int[] updated = repository.writeChunk("rating-test", chunk.getIds(), chunk.getVersions(), new double[]{99, 99}, 2, 2);
+        assertEquals("Строка, измененная после чтения, перезаписана.", 0, updated[0]);
+        assertEquals("Строка без изменений не записана.", 1, updated[1]);
+        assertEquals("Рейтинг, записанный после чтения, потерян.", 7.5,
+                jdbcTemplate.queryForObject("SELECT rating FROM ship WHERE id = 1", Double.class));
+    }
+
+    private ShipInfoTest getShip(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, ShipInfoTest.class);
+    }
+}
@@ -0,0 +1,195 @@
+package com.space.controller;
+
+import com.space.config.ReadYourWritesInterceptor;
+import com.space.config.ReplicaRoutingDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class ReplicaRoutingTest {
+
+    private DataSource primary = database("primary");
+    private DataSource replica1 = database("replica-1");
+    private DataSource replica2 = database("replica-2");
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @Before
+    public void setup() {
+        routing = new ReplicaRoutingDataSource(primary, Arrays.asList(replica1, replica2),
+                ReplicaRoutingDataSource.Selection.ROUND_ROBIN, 1000);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        // no replica counts as caught up before it has seen a heartbeat
+        routing.checkReplicas();
+    }
+
+    @After
+    public void close() {
+        ReplicaRoutingDataSource.setPinnedToPrimary(false);
+        routing.close();
+    }
+
+    //test1
+    @Test
+    public void readOnlyTransactionsAreSpreadOverReplicas() {
+        assertEquals("Чтение до проверки реплик ушло не на основную базу.", "primary", read(readOnly));
+
+        replicate(replica1);
+        replicate(replica2);
+        routing.checkReplicas();
+
+        String first = read(readOnly);
+        String second = read(readOnly);
+        assertTrue("Чтения не распределены по репликам.", !first.equals(second) && first.startsWith("replica") && second.startsWith("replica"));
+        assertEquals("Запись ушла не на основную базу.", "primary", read(readWrite));
+        assertEquals("Чтение вне транзакции ушло не на основную базу.", "primary", jdbcTemplate.queryForObject("SELECT name FROM probe", String.class));
+    }
+
+    //test2
+    @Test
+    public void laggingReplicaAndPinnedClientAreNotServedByReplicas() {
+        replicate(replica1);
+        routing.checkReplicas();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Отстающая реплика получила чтение.", "replica-1", read(readOnly));
+        }
+        ReplicaRoutingDataSource.setPinnedToPrimary(true);
+        assertEquals("Клиент после записи читает с реплики.", "primary", read(readOnly));
+        assertEquals("Неверное количество чтений реплики.", 4L, routing.snapshot().get("replica-1").get("reads"));
+        assertTrue("Отставание реплики не обнаружено.", routing.snapshot().get("replica-2").get("lagMillis") > 1000);
+    }
+
+    //test3
+    @Test
+    public void writeRequestPinsClientToPrimary() {
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor(5000);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(new MockHttpServletRequest("POST", "/rest/ships/1"), response, null);
+        Cookie cookie = response.getCookie("cosmoport-primary-until");
+        assertTrue("Запись не закрепила клиента за основной базой.", cookie != null && ReplicaRoutingDataSource.isPinnedToPrimary());
+        interceptor.afterCompletion(null, null, null, null);
+        assertTrue("Закрепление не снято после запроса.", !ReplicaRoutingDataSource.isPinnedToPrimary());
+
+        MockHttpServletRequest read = new MockHttpServletRequest("GET", "/rest/ships");
+        read.setCookies(cookie);
+        interceptor.preHandle(read, new MockHttpServletResponse(), null);
+        assertTrue("Чтение после записи не закреплено за основной базой.", ReplicaRoutingDataSource.isPinnedToPrimary());
+
+        interceptor.preHandle(new MockHttpServletRequest("GET", "/rest/ships"), new MockHttpServletResponse(), null);
+        assertTrue("Чтение без записи закреплено за основной базой.", !ReplicaRoutingDataSource.isPinnedToPrimary());
+    }
+
+    //test4
+    @Test
+    public void pinFollowsTheExportOntoTheExecutorThread() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setTaskDecorator(ReplicaRoutingDataSource::keepingPin);
+        executor.initialize();
+        try {
+            replicate(replica1);
+            replicate(replica2);
+            routing.checkReplicas();
+
+            ReplicaRoutingDataSource.setPinnedToPrimary(true);
+            Future<String> pinned = executor.submit(() -> read(readOnly));
+            ReplicaRoutingDataSource.setPinnedToPrimary(false);
+            Future<String> unpinned = executor.submit(() -> read(readOnly));
+            assertEquals("Выгрузка после записи читает с реплики.", "primary", pinned.get());
+            assertTrue("Выгрузка без записи не читает с реплики.", unpinned.get().startsWith("replica"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //test5
+    @Test
+    public void replicaReadsAreCountedPerThread() throws Exception {
+        replicate(replica1);
+        replicate(replica2);
+        routing.checkReplicas();
+
+        long before = ReplicaRoutingDataSource.replicaReads();
+        read(readWrite);
+        ReplicaRoutingDataSource.setPinnedToPrimary(true);
+        read(readOnly);
+        ReplicaRoutingDataSource.setPinnedToPrimary(false);
+        assertEquals("Чтение с основной базы засчитано как чтение реплики.", before, ReplicaRoutingDataSource.replicaReads());
+
+        read(readOnly);
+        assertEquals("Чтение реплики не засчитано.", before + 1, ReplicaRoutingDataSource.replicaReads());
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.initialize();
+        try {
+            executor.submit(() -> read(readOnly)).get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals("Чтение реплики другим потоком засчитано текущему.", before + 1, ReplicaRoutingDataSource.replicaReads());
+    }
+
+    //test6
+    @Test
+    public void readOnPrimaryKeepsThePinOfTheCaller() {
+        replicate(replica1);
+        replicate(replica2);
+        routing.checkReplicas();
+
+        assertEquals("Чтение для кэшей обслужено репликой.", "primary", ReplicaRoutingDataSource.onPrimary(() -> read(readOnly)));
+        assertEquals("Закрепление за основной базой не снято.", false, ReplicaRoutingDataSource.isPinnedToPrimary());
+
+        ReplicaRoutingDataSource.setPinnedToPrimary(true);
+        try {
+            ReplicaRoutingDataSource.onPrimary(() -> read(readOnly));
+            assertEquals("Закрепление клиента снято.", true, ReplicaRoutingDataSource.isPinnedToPrimary());
+        } finally {
+            ReplicaRoutingDataSource.setPinnedToPrimary(false);
+        }
+    }
+
+    private String read(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM probe", String.class));
+    }
+
+    // what replication would do with the heartbeat the primary has just written
+    private void replicate(DataSource replica) {
+        Long beatAt = new JdbcTemplate(primary).queryForObject("SELECT beatAt FROM replica_heartbeat WHERE id = 1", Long.class);
+        new JdbcTemplate(replica).update("UPDATE replica_heartbeat SET beatAt = ? WHERE id = 1", beatAt);
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE replica_heartbeat (id INT NOT NULL, beatAt BIGINT NOT NULL, PRIMARY KEY (id))");
+        jdbcTemplate.update("INSERT INTO replica_heartbeat(id, beatAt) VALUES (1, 0)");
+        jdbcTemplate.execute("CREATE TABLE probe (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO probe(name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,125 @@
+package com.space.controller;
+
+import com.space.config.SchemaMigrator;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class SchemaMigrationTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void allMigrationsAreRecorded() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        assertEquals("Не все миграции применены.", Arrays.asList(1, 2, 3, 4, 5, 6),
+                jdbcTemplate.queryForList("SELECT version FROM schema_version ORDER BY version", Integer.class));
+        assertEquals("Повторный запуск не должен применять миграции.", 0,
+                new SchemaMigrator(context.getBean(DataSource.class), 7, 0).migrate());
+    }
+
+    //test2
+    @Test
+    public void backfillFillsEveryChunkAndResumesFromCheckpoint() {
+        JdbcTemplate jdbcTemplate = probeDatabase();
+        for (long id = 1; id <= 40; id++) {
+            jdbcTemplate.update("INSERT INTO probe(id, name) VALUES (?, ?)", id, "Ship " + id);
+        }
+        jdbcTemplate.update("INSERT INTO job_checkpoint(name, lastId) VALUES ('migration-V1', 20)");
+
+        assertEquals("Неверное количество примененных миграций.", 1, backfill(jdbcTemplate));
+        assertEquals("Строки до контрольной точки не должны заполняться.", 20,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM probe WHERE nameLower IS NULL", Integer.class));
+        assertEquals("Строки после контрольной точки не заполнены.", "ship 40",
+                jdbcTemplate.queryForObject("SELECT nameLower FROM probe WHERE id = 40", String.class));
+        assertEquals("Контрольная точка миграции не удалена.", 0,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM job_checkpoint WHERE name = 'migration-V1'", Integer.class));
+
+        jdbcTemplate.update("DELETE FROM schema_version");
+        backfill(jdbcTemplate);
+        assertEquals("Заполнены не все строки.", 0,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM probe WHERE nameLower IS NULL", Integer.class));
+    }
+
+    //test3
+    @Test
+    public void databaseFromOldInitScriptGetsTheWholeFirstVersion() {
+        DataSource dataSource = database();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE ship (id BIGINT NOT NULL AUTO_INCREMENT, name VARCHAR(50), planet VARCHAR(50), " +
+                "shipType VARCHAR(9), prodDate DATE, isUsed BIT, speed DOUBLE, crewSize INT, rating DOUBLE, PRIMARY KEY (id))");
+        jdbcTemplate.update("INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating) " +
+                "VALUES ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)");
+
+        assertEquals("Неверное количество примененных миграций.", 6, new SchemaMigrator(dataSource, 7, 0).migrate());
+        assertEquals("Строки не заполнены.", "orion iii", jdbcTemplate.queryForObject("SELECT nameLower FROM ship", String.class));
+
+        // written without the entity, as another client would
+        jdbcTemplate.update("INSERT INTO ship(id, name, planet) VALUES (2, 'Daedalus', 'Jupiter')");
+        jdbcTemplate.update("UPDATE ship SET planet = 'Io' WHERE id = 2");
+        assertEquals("Строчные копии не вычислены базой.", "daedalus io",
+                jdbcTemplate.queryForObject("SELECT nameLower || ' ' || planetLower FROM ship WHERE id = 2", String.class));
+        assertEquals("Индекс для keyset-страниц не создан.", 1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = 'SHIP_SPEED_ID' AND ORDINAL_POSITION = 1", Integer.class));
+    }
+
+    //test4
+    @Test
+    public void instancesStartingTogetherApplyEveryMigrationOnce() throws Exception {
+        DataSource dataSource = database();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(() -> new SchemaMigrator(dataSource, 7, 0).migrate()));
+            }
+            int applied = 0;
+            for (Future<Integer> future : futures) {
+                applied += future.get();
+            }
+            assertEquals("Миграции применены повторно.", 6, applied);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //test5
+    @Test
+    public void backfillSeeksOverSparseKeys() {
+        JdbcTemplate jdbcTemplate = probeDatabase();
+        // ids of the time-ordered id generator are far apart
+        for (long id : new long[]{3, 1L << 50, (1L << 52) + 5}) {
+            jdbcTemplate.update("INSERT INTO probe(id, name) VALUES (?, 'Orion III')", id);
+        }
+
+        backfill(jdbcTemplate);
+        assertEquals("Заполнены не все строки.", 0,
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM probe WHERE nameLower IS NULL", Integer.class));
+    }
+
+    private static DataSource database() {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    // a table with a column left for the backfill script of db/backfill to fill
+    private static JdbcTemplate probeDatabase() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database());
+        jdbcTemplate.execute("CREATE TABLE probe (id BIGINT NOT NULL, name VARCHAR(50), nameLower VARCHAR(50), PRIMARY KEY (id))");
+        jdbcTemplate.execute("CREATE TABLE job_checkpoint (name VARCHAR(50) NOT NULL, lastId BIGINT NOT NULL, PRIMARY KEY (name))");
+        return jdbcTemplate;
+    }
+
+    private static int backfill(JdbcTemplate jdbcTemplate) {
+        return new SchemaMigrator(jdbcTemplate.getDataSource(), "db/backfill", 7, 0).migrate();
+    }
+}
@@ -0,0 +1,89 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import com.space.model.Ship;
+import com.space.service.ShipCache;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipCacheTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<Map<String, Long>> typeReference = new TypeReference<Map<String, Long>>() {
+    };
+
+    //test1
+    @Test
+    public void repeatedGetIsServedFromCache() throws Exception {
+        Map<String, Long> before = metrics();
+
+        getShip(7);
+        getShip(7);
+
+        Map<String, Long> after = metrics();
+        assertEquals("Первый запрос GET /rest/ships/{id} должен быть промахом кэша.", before.get("misses") + 1, after.get("misses"));
+        assertEquals("Повторный запрос GET /rest/ships/{id} должен обслуживаться из кэша.", before.get("hits") + 1, after.get("hits"));
+    }
+
+    //test2
+    @Test
+    public void updateInvalidatesCachedShip() throws Exception {
+        getShip(7);
+
+        mockMvc.perform(post("/rest/ships/7")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        ShipInfoTest actual = getShip(7);
+        assertEquals("После POST /rest/ships/{id} возвращается устаревший корабль.", "123456789", actual.name);
+    }
+
+    //test3
+    @Test
+    public void rowReadBeforeWriteIsNotPutBack() {
+        ShipCache cache = new ShipCache(10, 300);
+        Ship before = ship(7, 3);
+        cache.put(ship(7, 4));
+        cache.put(before);
+        assertEquals("Устаревшая версия заменила новую в кэше.", 4L, cache.get(7L).getVersion());
+
+        cache.evict(7L);
+        cache.put(before);
+        assertEquals("Удаленный корабль вернулся в кэш.", null, cache.get(7L));
+    }
+
+    private static Ship ship(long id, long version) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setVersion(version);
+        return ship;
+    }
+
+    private ShipInfoTest getShip(long id) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/" + id)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, ShipInfoTest.class);
+    }
+
+    private Map<String, Long> metrics() throws Exception {
+        String content = mockMvc.perform(get("/rest/metrics/ship-cache")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+}
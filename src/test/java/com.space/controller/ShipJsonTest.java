@@ -0,0 +1,77 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.Ship;
+import com.space.model.ShipType;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class ShipJsonTest {
+
+    private ObjectMapper reflection = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    private ObjectMapper module = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .registerModule(new ShipJsonModule());
+
+    //test1
+    @Test
+    public void shipIsWrittenLikeFieldReflection() throws Exception {
+        Ship ship = new Ship();
+        ship.setId(7L);
+        ship.setName("Icarus \"I\"");
+        ship.setPlanet("Mercury");
+        ship.setShipType(ShipType.TRANSPORT);
+        ship.setProdDate(new Date(32_503_680_000_000L));
+        ship.setUsed(false);
+        ship.setSpeed(0.08);
+        ship.setCrewSize(826);
+        ship.setRating(0.27);
+        ship.setVersion(3L);
+
+        assertEquals("Сериализация корабля отличается.", reflection.writeValueAsString(ship), module.writeValueAsString(ship));
+        assertEquals("Сериализация пустого корабля отличается.", reflection.writeValueAsString(new Ship()), module.writeValueAsString(new Ship()));
+    }
+
+    //test2
+    @Test
+    public void viewListIsWrittenLikeFieldReflection() throws Exception {
+        Object views = Arrays.asList(
+                new ShipView(1L, "Orion III", "Mars", ShipType.MERCHANT, new Date(32_377_449_600_000L), true, 0.82, 617, 1.31),
+                new ShipView(2L, null, null, null, null, null, null, null, null));
+
+        assertEquals("Сериализация списка отличается.", reflection.writeValueAsString(views), module.writeValueAsString(views));
+    }
+
+    //test3
+    @Test
+    public void decimalsAreWrittenLikeDoubleToString() throws Exception {
+        for (long hundredths = 0; hundredths <= 200_000; hundredths++) {
+            assertDecimal(hundredths / 100d);
+        }
+        for (double value : new double[]{0.001, 0.005, 0.125, 1e7, 9999999.99, 12345678.9, 1e-5, -0.5, -0.0, 0.1 + 0.2,
+                Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN}) {
+            assertDecimal(value);
+        }
+    }
+
+    private void assertDecimal(double value) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator gen = module.getFactory().createGenerator(writer)) {
+            gen.writeStartArray();
+            ShipJsonModule.writeDecimal(gen, value);
+            gen.writeEndArray();
+        }
+        assertEquals("Неверная запись числа " + value + ".", reflection.writeValueAsString(new double[]{value}), writer.toString());
+    }
+}
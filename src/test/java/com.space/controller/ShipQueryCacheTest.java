@@ -0,0 +1,64 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipQueryCacheTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private TypeReference<Map<String, Long>> typeReference = new TypeReference<Map<String, Long>>() {
+    };
+
+    //test1
+    @Test
+    public void equivalentFiltersShareCachedCount() throws Exception {
+        count("?name=Ra&minSpeed=0.3");
+        Map<String, Long> before = metrics();
+
+        String actual = count("?name=ra&minSpeed=0.30&maxSpeed=0&planet=");
+
+        Map<String, Long> after = metrics();
+        assertEquals("Эквивалентный фильтр должен обслуживаться из кэша запросов.", before.get("hits") + 1, after.get("hits"));
+        assertEquals("Возвращается не правильный результат из кэша запросов.", count("?name=ra&minSpeed=0.3"), actual);
+    }
+
+    //test2
+    @Test
+    public void writeInvalidatesCachedCount() throws Exception {
+        String before = count("?name=123456789");
+
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("Кэш запросов не сбрасывается после создания корабля.", "0", before);
+        assertEquals("Кэш запросов не сбрасывается после создания корабля.", "1", count("?name=123456789"));
+    }
+
+    private String count(String query) throws Exception {
+        return mockMvc.perform(get("/rest/ships/count" + query)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private Map<String, Long> metrics() throws Exception {
+        String content = mockMvc.perform(get("/rest/metrics/query-cache")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, typeReference);
+    }
+}
@@ -0,0 +1,47 @@
+package com.space.controller;
+
+import com.space.model.Ship;
+import com.space.service.ShipQueryEngine;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class ShipQueryEngineTest {
+
+    //test1
+    @Test
+    public void writersFinishingOutOfOrderKeepTheNewestRow() {
+        ShipQueryEngine engine = new ShipQueryEngine(null, true, 300);
+        engine.put(ship(7, "Orion IV", 4));
+        engine.put(ship(7, "Orion III", 3));
+        List<ShipView> ships = engine.get(new long[]{7});
+        assertEquals("Устаревшая версия заменила новую.", "Orion IV", ships.get(0).getName());
+
+        engine.remove(7L);
+        engine.put(ship(7, "Orion V", 5));
+        assertEquals("Удаленный корабль вернулся.", 0, engine.get(new long[]{7}).size());
+    }
+
+    //test2
+    @Test
+    public void tombstonesAreDroppedAfterTheirTimeToLive() {
+        ShipQueryEngine engine = new ShipQueryEngine(null, true, 0);
+        for (long id = 1; id <= 100; id++) {
+            engine.put(ship(id, "Orion " + id, 0));
+            engine.remove(id);
+        }
+        engine.put(ship(7, "Orion VII", 1));
+        assertEquals("Истекшая отметка удаления не сброшена.", 1, engine.get(new long[]{7}).size());
+    }
+
+    private static Ship ship(long id, String name, long version) {
+        Ship ship = new Ship();
+        ship.setId(id);
+        ship.setName(name);
+        ship.setPlanet("Mars");
+        ship.setVersion(version);
+        return ship;
+    }
+}
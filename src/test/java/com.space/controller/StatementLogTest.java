@@ -0,0 +1,49 @@
+package com.space.controller;
+
+import com.space.config.SqlStatementLog;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StatementLogTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void requestOverBudgetIsFlagged() {
+        SqlStatementLog statementLog = context.getBean(SqlStatementLog.class);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+
+        statementLog.beginRequest();
+        for (long id = 1; id <= statementLog.getBudget() + 1; id++) {
+            jdbcTemplate.queryForObject("SELECT name FROM ship WHERE id = ?", String.class, id);
+        }
+        int statements = statementLog.endRequest("GET", "/rest/ships");
+
+        assertEquals("Неверное количество запросов.", statementLog.getBudget() + 1, statements);
+        List<String> violations = statementLog.drainViolations();
+        assertEquals("Превышение бюджета не обнаружено.", 1, violations.size());
+        assertTrue("Неверное описание превышения.", violations.get(0).startsWith("GET /rest/ships issued "));
+    }
+
+    //test2
+    @Test
+    public void requestStatementsAreRecorded() throws Exception {
+        mockMvc.perform(get("/rest/ships/13")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/rest/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Нет количества запросов к базе на HTTP-запрос.", metrics.contains(
+                "cosmoport_http_request_statements_count{endpoint=\"/rest/ships/{id}\"}"));
+    }
+}
@@ -0,0 +1,8 @@
+package com.space.controller.utils;
+
+public class ShipBulkResultInfoTest {
+    public Integer index;
+    public Long id;
+    public Integer status;
+    public ShipInfoTest ship;
+}
@@ -0,0 +1,9 @@
+package com.space.controller.utils;
+
+import java.util.List;
+
+public class ShipPageInfoTest {
+    public List<ShipInfoTest> content;
+    public Long total;
+    public String nextCursor;
+}
@@ -0,0 +1,2 @@
+-- @backfill probe.id
+UPDATE probe SET nameLower = LOWER(name) WHERE id > ? AND id <= ?